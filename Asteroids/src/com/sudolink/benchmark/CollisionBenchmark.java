@@ -0,0 +1,139 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.benchmark;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.entities.Bullet;
+import com.sudolink.entities.GameObject;
+import com.sudolink.game.GameSession;
+import com.sudolink.manager.SpatialHash;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the cost of one collision pass with the spatial hash against the
+ * old "every bullet against every object" loop. The entity density is kept
+ * the same as a busy screen (about 100 objects on 900x600), so the world grows
+ * with the entity count. Only the bounds test is run; no collide() handlers
+ * are called, so no game state is needed.
+ *
+ * Run with: java -cp build/classes com.sudolink.benchmark.CollisionBenchmark
+ *
+ * @author Matthew MacGregor
+ */
+public class CollisionBenchmark {
+
+    private static final int[] ENTITY_COUNTS = {100, 1000, 5000, 10000, 50000};
+    // The brute force pass is quadratic, don't bother past this point.
+    private static final int BRUTE_FORCE_LIMIT = 10000;
+    private static final float AREA_PER_ENTITY = 900 * 600 / 100f;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%8s %8s %14s %14s %14s",
+                "entities", "bullets", "brute ms/tick", "grid ms/tick", "grid ns/ent"));
+
+        for (int count : ENTITY_COUNTS) {
+            List<GameObject> objects = new ArrayList<>();
+            List<GameObject> bullets = new ArrayList<>();
+            populate(count, objects, bullets);
+
+            String brute = "-";
+            if (count <= BRUTE_FORCE_LIMIT) {
+                brute = String.format("%.3f", timeBruteForce(objects, bullets));
+            }
+            double grid = timeGrid(objects, bullets);
+
+            System.out.println(String.format("%8d %8d %14s %14.3f %14.1f",
+                    count, bullets.size(), brute, grid, grid * 1e6 / count));
+        }
+    }
+
+    private static void populate(int count, List<GameObject> objects, List<GameObject> bullets) {
+        Random random = new Random(42);
+        float side = (float) Math.sqrt(count * AREA_PER_ENTITY);
+        int bulletCount = Math.max(1, count / 10);
+        // An empty world, just to hold the objects
+        GameSession world = new GameSession((int) side, (int) side, 42);
+
+        for (int i = 0; i < count - bulletCount; i++) {
+            objects.add(new Asteroid(world, random.nextFloat() * side, random.nextFloat() * side,
+                    random.nextInt(360), 1.5f));
+        }
+        for (int i = 0; i < bulletCount; i++) {
+            Bullet b = new Bullet(world, random.nextFloat() * side, random.nextFloat() * side,
+                    random.nextInt(360));
+            objects.add(b);
+            bullets.add(b);
+        }
+    }
+
+    private static double timeBruteForce(List<GameObject> objects, List<GameObject> bullets) {
+        int iterations = iterationsFor(objects.size() * bullets.size() / 1000);
+        long hits = 0;
+        long start = 0;
+        for (int i = -iterations; i < iterations; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            for (GameObject b : bullets) {
+                for (GameObject o : objects) {
+                    if (o != b && b.intersects(o)) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        sink += hits;
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+
+    private static double timeGrid(List<GameObject> objects, List<GameObject> bullets) {
+        SpatialHash grid = new SpatialHash(48);
+        int iterations = iterationsFor(objects.size());
+        long hits = 0;
+        long start = 0;
+        for (int i = -iterations; i < iterations; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            grid.clear();
+            for (GameObject o : objects) {
+                grid.insert(o);
+            }
+            for (GameObject b : bullets) {
+                int n = grid.query(b);
+                for (int c = 0; c < n; c++) {
+                    if (b.intersects(grid.getCandidate(c))) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        sink += hits;
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+
+    private static int iterationsFor(int work) {
+        return Math.max(5, Math.min(2000, 2000000 / Math.max(1, work)));
+    }
+
+    // Keeps the JIT from discarding the measured loops.
+    private static long sink;
+}
@@ -0,0 +1,134 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.benchmark;
+
+import com.sudolink.game.FramePacer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compares the CPU used and the steadiness of the frame rate when a loop is
+ * paced by the FramePacer, with and without catch-up, against the sleep and
+ * yield loop the game used before. Each frame does a fixed amount of busy
+ * work to stand in for simulating or drawing, and every so often a frame
+ * runs long, like one held up by a collection or the scheduler, so the
+ * figures show how each loop deals with a late frame.
+ *
+ * Run with: java -cp build/classes com.sudolink.benchmark.PacingBenchmark
+ *
+ * @author Matthew MacGregor
+ */
+public class PacingBenchmark {
+
+    private static final long[] PERIODS = {50000000L, 16666666L};
+    private static final long SECONDS = 5;
+    private static final long WORK_NANOS = 2000000L;
+    private static final int STALL_EVERY = 30;
+    private static final long STALL_NANOS = 20000000L;
+
+    public static void main(String[] args) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.println(String.format("%10s %8s %8s %14s %14s %14s",
+                "period ms", "pacing", "cpu %", "mean ms", "stddev ms", "worst ms"));
+
+        for (long period : PERIODS) {
+            int frames = (int) (SECONDS * 1000000000L / period);
+            report(threads, period, "sleep", frames);
+            report(threads, period, "park", frames);
+            report(threads, period, "restart", frames);
+        }
+    }
+
+    private static void report(ThreadMXBean threads, long period, String name,
+            int frames) {
+        long[] intervals = new long[frames];
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        if (name.equals("sleep")) {
+            runSleeping(period, intervals);
+        } else {
+            runPaced(new FramePacer(period, name.equals("park")), intervals);
+        }
+        long wall = System.nanoTime() - start;
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        double mean = 0;
+        long worst = 0;
+        for (long interval : intervals) {
+            mean += interval;
+            worst = Math.max(worst, Math.abs(interval - period));
+        }
+        mean /= frames;
+        double variance = 0;
+        for (long interval : intervals) {
+            variance += (interval - mean) * (interval - mean);
+        }
+        double stddev = Math.sqrt(variance / frames);
+
+        System.out.println(String.format("%10.2f %8s %8.1f %14.3f %14.3f %14.3f",
+                period / 1e6, name, cpu * 100.0 / wall, mean / 1e6, stddev / 1e6, worst / 1e6));
+    }
+
+    private static void runPaced(FramePacer pacer, long[] intervals) {
+        pacer.start();
+        long last = System.nanoTime();
+        for (int i = 0; i < intervals.length; i++) {
+            work(i);
+            long now = pacer.awaitNextFrame();
+            intervals[i] = now - last;
+            last = now;
+        }
+    }
+
+    /**
+     * The loop as it was in GameLoop before the FramePacer: sleep for the
+     * first 80% of the frame, then yield until it is over.
+     */
+    private static void runSleeping(long period, long[] intervals) {
+        long last = System.nanoTime();
+        for (int i = 0; i < intervals.length; i++) {
+            long frameStart = System.nanoTime();
+            work(i);
+            long diff;
+            while ((diff = System.nanoTime() - frameStart) < period) {
+                if (diff < period * 0.8) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException exc) {
+                    }
+                } else {
+                    Thread.yield();
+                }
+            }
+            long now = System.nanoTime();
+            intervals[i] = now - last;
+            last = now;
+        }
+    }
+
+    private static void work(int frame) {
+        long end = System.nanoTime() + WORK_NANOS;
+        if (frame % STALL_EVERY == STALL_EVERY - 1) {
+            end += STALL_NANOS;
+        }
+        while (System.nanoTime() < end) {
+            // Busy, like a frame being simulated or drawn
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.benchmark;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.game.GameSession;
+import com.sudolink.game.SceneRenderer;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.GameObjectsManager;
+import com.sudolink.manager.SnapshotBuffer;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Measures how long it takes to simulate and draw a tick, with the two done
+ * back to back on one thread against overlapped on two threads through the
+ * SnapshotBuffer. On a machine with more than one core the pipelined time per
+ * tick should approach the slower of the two stages rather than their sum.
+ *
+ * Run with: java -Djava.awt.headless=true -cp build/classes com.sudolink.benchmark.PipelineBenchmark
+ *
+ * @author Matthew MacGregor
+ */
+public class PipelineBenchmark {
+
+    private static final int[] ASTEROID_COUNTS = {1000, 5000};
+    private static final int TICKS = 300;
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 600;
+    // An empty world: asteroids only, no ship or waves
+    private static final GameSession WORLD = new GameSession(WIDTH, HEIGHT, 42);
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.println(String.format("%9s %16s %16s %16s",
+                "asteroids", "serial ms/tick", "piped ms/tick", "frames drawn"));
+
+        GameObjectsManager gom = WORLD.getObjects();
+        Random random = new Random(42);
+        int added = 0;
+        for (int count : ASTEROID_COUNTS) {
+            for (; added < count; added++) {
+                Asteroid a = gom.getAsteroidPool().obtain();
+                a.init(random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT,
+                        random.nextInt(360), 1.5f, Asteroid.Size.UNDEFINED);
+                gom.add(a);
+            }
+            gom.update();
+
+            // Warm up both paths before measuring
+            serial(TICKS);
+            double serial = serial(TICKS);
+            pipelined(TICKS);
+            long[] drawn = new long[1];
+            double piped = pipelined(TICKS, drawn);
+
+            System.out.println(String.format("%9d %16.3f %16.3f %16d",
+                    count, serial, piped, drawn[0]));
+        }
+    }
+
+    private static double serial(int ticks) {
+        GameObjectsManager gom = WORLD.getObjects();
+        SnapshotBuffer snapshots = gom.getSnapshots();
+        SceneRenderer scene = new SceneRenderer(WIDTH, HEIGHT);
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = screen.createGraphics();
+
+        long start = System.nanoTime();
+        for (int tick = 1; tick <= ticks; tick++) {
+            gom.update();
+            gom.publishSnapshot(tick);
+            scene.draw(g2d, WIDTH, HEIGHT, snapshots.getFront(), 1);
+        }
+        g2d.dispose();
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+
+    private static double pipelined(int ticks) throws InterruptedException {
+        return pipelined(ticks, new long[1]);
+    }
+
+    /**
+     * The render thread draws each new snapshot as it is published, while
+     * this thread simulates the next tick. The tick number is used as the
+     * snapshot's tick time so the renderer can tell new snapshots apart, and
+     * the simulation doesn't publish a tick until the renderer has picked up
+     * the one before, so every tick is drawn just as in the serial case.
+     */
+    private static double pipelined(final int ticks, final long[] drawn) throws InterruptedException {
+        final GameObjectsManager gom = WORLD.getObjects();
+        final SnapshotBuffer snapshots = gom.getSnapshots();
+
+        Thread renderer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                SceneRenderer scene = new SceneRenderer(WIDTH, HEIGHT);
+                BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = screen.createGraphics();
+                long last = 0;
+                while (last < ticks) {
+                    FrameSnapshot frame = snapshots.getFront();
+                    long tick = frame.getTickTime();
+                    if (tick != last && tick > 0) {
+                        started = tick;
+                        scene.draw(g2d, WIDTH, HEIGHT, frame, 1);
+                        drawn[0]++;
+                    }
+                    if (tick == last) {
+                        Thread.yield();
+                    }
+                    last = Math.max(last, tick);
+                }
+                g2d.dispose();
+            }
+        }, "Render");
+
+        // Start from a snapshot the renderer will ignore
+        gom.publishSnapshot(0);
+        started = 0;
+        long start = System.nanoTime();
+        renderer.start();
+        for (int tick = 1; tick <= ticks; tick++) {
+            gom.update();
+            while (started < tick - 1) {
+                Thread.yield();
+            }
+            gom.publishSnapshot(tick);
+        }
+        renderer.join();
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+
+    // The last tick the render thread has started drawing.
+    private static volatile long started;
+}
@@ -0,0 +1,125 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.benchmark;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.entities.GameObject;
+import com.sudolink.entities.StickParticle;
+import com.sudolink.game.GameSession;
+import com.sudolink.game.SceneRenderer;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.RotationCache;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the cost of drawing a screen full of spinning objects three ways:
+ * rotating each sprite as it is drawn, blitting pre-rotated frames from the
+ * RotationCache, and rasterizing outlines with the RasterRenderer. Each frame
+ * takes a FrameSnapshot of the objects and draws it with a SceneRenderer,
+ * the same as the game. Objects are drawn into an offscreen image the size of
+ * the game screen, so this runs headless.
+ *
+ * Run with: java -Djava.awt.headless=true -cp build/classes com.sudolink.benchmark.RenderBenchmark
+ *
+ * @author Matthew MacGregor
+ */
+public class RenderBenchmark {
+
+    private static final int[] OBJECT_COUNTS = {1000, 2000, 5000, 10000};
+    private static final int STEPS = 64;
+    private static final long CACHE_BYTES = 64L * 1024 * 1024;
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 600;
+    private static final int FRAMES = 200;
+
+    public static void main(String[] args) {
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        SceneRenderer scene = new SceneRenderer(WIDTH, HEIGHT);
+        RotationCache cache = RotationCache.getInstance();
+
+        System.out.println(String.format("%8s %16s %16s %16s %14s",
+                "objects", "rotate ms/frame", "cached ms/frame", "raster ms/frame", "cache KB"));
+
+        for (int count : OBJECT_COUNTS) {
+            List<GameObject> objects = populate(count);
+
+            scene.setRasterEnabled(false);
+            cache.configure(0, 0);
+            double rotate = time(scene, screen, objects);
+
+            cache.configure(STEPS, CACHE_BYTES);
+            double cached = time(scene, screen, objects);
+            long cacheBytes = cache.getBytesUsed();
+
+            cache.configure(0, 0);
+            scene.setRasterEnabled(true);
+            double rasterized = time(scene, screen, objects);
+
+            System.out.println(String.format("%8d %16.3f %16.3f %16.3f %14d",
+                    count, rotate, cached, rasterized, cacheBytes / 1024));
+        }
+    }
+
+    private static List<GameObject> populate(int count) {
+        Random random = new Random(42);
+        List<GameObject> objects = new ArrayList<>();
+        // An empty world, just to hold the objects
+        GameSession world = new GameSession(WIDTH, HEIGHT, 42);
+        for (int i = 0; i < count; i++) {
+            GameObject o;
+            if (i % 4 == 0) {
+                o = new StickParticle(world, random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT);
+            } else {
+                o = new Asteroid(world, random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT,
+                        random.nextInt(360), 1.5f);
+            }
+            o.setRotation(random.nextInt(360));
+            objects.add(o);
+        }
+        return objects;
+    }
+
+    /**
+     * Draws FRAMES frames after the same number of warm up frames, turning
+     * every object a little each frame so all angles get used.
+     */
+    private static double time(SceneRenderer scene, BufferedImage screen, List<GameObject> objects) {
+        Graphics2D g2d = screen.createGraphics();
+        FrameSnapshot frame = new FrameSnapshot();
+        long start = 0;
+        for (int f = -FRAMES; f < FRAMES; f++) {
+            if (f == 0) {
+                start = System.nanoTime();
+            }
+            frame.clear();
+            for (GameObject o : objects) {
+                o.setRotation(o.getRotation() + 3);
+                frame.add(o);
+            }
+            scene.draw(g2d, WIDTH, HEIGHT, frame, 1);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e6 / FRAMES;
+        g2d.dispose();
+        return elapsed;
+    }
+}
@@ -20,12 +20,13 @@ package com.sudolink.entities;
 
 import static com.sudolink.enumeration.EntityState.Killed;
 import static com.sudolink.enumeration.Team.Enemy;
-import com.sudolink.game.GameMain;
+import com.sudolink.enumeration.RandomStream;
+import com.sudolink.game.GameSession;
 import com.sudolink.manager.AudioManager;
 import com.sudolink.manager.GameObjectsManager;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Polygon;
+import com.sudolink.manager.AsteroidAtlas;
+import com.sudolink.manager.SplitMix;
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -42,7 +43,35 @@ public class Asteroid extends GameObject {
         public static final int LARGE = 3;
     }
     
-    public Asteroid(float x, float y, float angle, float speed, int sizeOverride ) {
+    /**
+     * Creates an uninitialized asteroid, for use by an ObjectPool. Call init()
+     * before adding it to the game.
+     */
+    public Asteroid(GameSession session) {
+        super(session);
+        random = session.getRandom().get(RandomStream.Asteroids);
+    }
+
+    public Asteroid(GameSession session, float x, float y, float angle, float speed, int sizeOverride ) {
+        this(session);
+        init(x, y, angle, speed, sizeOverride);
+    }
+    
+    public Asteroid(GameSession session, float x, float y, float angle, float speed ) {
+        this(session, x, y, angle, speed, Size.UNDEFINED);
+    }
+
+    /**
+     * Sets up the asteroid with a new size, shape and heading.
+     * 
+     * @param x Horizontal coordinate.
+     * @param y Vertical coordinate.
+     * @param angle The direction of travel in degrees.
+     * @param speed The speed of travel.
+     * @param sizeOverride One of the Size constants, or Size.UNDEFINED for a 
+     * random size.
+     */
+    public final void init(float x, float y, float angle, float speed, int sizeOverride ) {
         initSize(sizeOverride);
         
         setWidth(size * 10);
@@ -52,44 +81,63 @@ public class Asteroid extends GameObject {
         setSpeed(speed);
         setDirection(angle);
         setTurnRate(1, TURN_RIGHT);
+        setTurnMode(true, false);
         setTeam(Enemy);
         
-        particleLifespanMax = (int)(Math.random() * 60);
-        initPolygon();
+        particleLifespanMax = random.nextInt(60);
+        shapeId = random.nextInt(AsteroidAtlas.SHAPES_PER_SIZE);
     }
-    
-    public Asteroid(float x, float y, float angle, float speed ) {
-        this(x, y, angle, speed, Size.UNDEFINED);
+
+    @Override
+    public void reset() {
+        super.reset();
+        size = 0;
+        particleLifespan = 0;
+        particleLifespanMax = 25;
+        offscreenCount = 0;
+        shapeId = 0;
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.put((byte) size);
+        buffer.put((byte) shapeId);
+        buffer.putShort((short) particleLifespan);
+        buffer.putShort((short) particleLifespanMax);
+        buffer.putShort((short) offscreenCount);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        size = buffer.get();
+        shapeId = buffer.get();
+        particleLifespan = buffer.getShort();
+        particleLifespanMax = buffer.getShort();
+        offscreenCount = buffer.getShort();
     }
     
+    /**
+     * Asteroids don't have a backbuffer of their own. They all draw from the
+     * shared shape atlas.
+     * 
+     * @return The sprite for this asteroid's shape.
+     */
     @Override
-    protected void drawToBuffer( Graphics2D _g2d ) {
-        Color transparent = new Color(1f, 0f, 0f, 0.0f);
-        _g2d.setBackground(transparent);
-        _g2d.clearRect(0, 0, (int) getWidth(), (int) getHeight());
-        _g2d.setPaint(Color.BLACK);
-        _g2d.fillPolygon(poly);
-        _g2d.setPaint(Color.GREEN);
-        _g2d.drawPolygon(poly);
- 
+    public Sprite getSprite() {
+        return AsteroidAtlas.getInstance().getSprite(size, shapeId);
     }
     
     @Override
-    public void draw(Graphics2D g2d) {
-        
-        super.draw(g2d);        
-        
+    public Outline getOutline() {
+        return AsteroidAtlas.getInstance().getOutline(size, shapeId);
     }
 
     @Override
     public void update() {
         
         super.update();
-        increaseRotation(getTurnRate());
-        float adjustment = 90;
-        float vx = (float) Math.cos(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-        float vy = (float) Math.sin(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-        moveToward(vx, vy);
         if( size == Size.TINY ) {
             if( particleLifespan > particleLifespanMax ) {
                 setState(Killed);
@@ -143,20 +191,24 @@ public class Asteroid extends GameObject {
     @Override
     public void damage(GameObject source, int amount ) {
         setState(Killed);
-        GameMain.getInstance().addPoints(getPoints());
+        getSession().addPoints(getPoints());
         AudioManager.getInstance().playClip("explosion");
         if( getSize() > Size.TINY ) {
+            GameObjectsManager gom = getSession().getObjects();
             for( int i = 0; i < 3; i++) { 
-                int direction = 1 +  (int)(Math.random() * 360);
-                int sz = (int)(Math.random() * ( getSize()));
-                Asteroid a = new Asteroid(getX(), getY(), direction, 3.3f, sz );
+                int direction = 1 + random.nextInt(360);
+                int sz = random.nextInt(getSize());
+                Asteroid a = gom.getAsteroidPool().obtain();
+                a.init(getX(), getY(), direction, 3.3f, sz );
                 a.setTurnRate(3.0f, GameObject.TURN_RIGHT);
-                GameObjectsManager.getInstance().add(a);
+                gom.add(a);
             }
             
             for( int i = 0; i < 6; i++ ) {
-                int direction = 1 +  (int)(Math.random() * 360);
-                GameObjectsManager.getInstance().add(new Asteroid(getX(), getY(), direction, 2.3f, Size.TINY ));
+                int direction = 1 + random.nextInt(360);
+                Asteroid a = gom.getAsteroidPool().obtain();
+                a.init(getX(), getY(), direction, 2.3f, Size.TINY );
+                gom.add(a);
             }
         }
     }
@@ -168,11 +220,18 @@ public class Asteroid extends GameObject {
     public void setSize(int size) {
         this.size = size;
     }
+
+    /**
+     * @return The id of this asteroid's shape in the AsteroidAtlas.
+     */
+    public int getShapeId() {
+        return shapeId;
+    }
     
     // <editor-fold defaultstate="collapsed" desc="Private Methods">
     
     private int generateSize() {
-        return (int)(Math.random() * 4) + 1;
+        return random.nextInt(4) + 1;
     }
     
     private void initSize(int sizeOverride) {
@@ -193,43 +252,15 @@ public class Asteroid extends GameObject {
         }
         
     }
-    
-    private void initPolygon() {
-        if( getSize() == Size.TINY ) {
-            poly = new Polygon();
-            poly.addPoint(0, 0);
-            poly.addPoint(1, 1);
-            return;
-        }
-        
-        double r1 = Math.random();
-        double r2 = Math.random();  
-        int[] xpoly = new int[] {              1,  
-                                (int) (  getWidth() * 0.3 * r1  ), 
-                                (int) (  getWidth() * 0.6  ), 
-                                (int)    getWidth()         ,
-                                (int) (  getWidth() * 0.7  ), 
-                                (int) (  getWidth() * 0.3 * r2 )
-                          };
-        
-        int[] ypoly = new int[] { 
-                                (int) ( getHeight() * 0.5 * r1 ), 
-                                (int)   1                       , 
-                                (int) ( getHeight() * 0.1 * r2 ), 
-                                (int) ( getHeight() * 0.3  ), 
-                                (int) ( getHeight() * 0.9  ), 
-                                (int)   getHeight() 
-                          };
-        poly = new Polygon(xpoly, ypoly, xpoly.length);
-    }
     // </editor-fold>
     
     // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final SplitMix random;
     private int size;
     private int particleLifespan = 0;
     private int particleLifespanMax = 25;
     private int offscreenCount;
-    private Polygon poly;
+    private int shapeId;
     // </editor-fold>
     
 }
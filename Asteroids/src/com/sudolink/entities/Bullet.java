@@ -21,8 +21,10 @@ package com.sudolink.entities;
 import com.sudolink.enumeration.EntityState;
 import static com.sudolink.enumeration.Team.Enemy;
 import static com.sudolink.enumeration.Team.Friend;
+import com.sudolink.game.GameSession;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  *
@@ -30,38 +32,52 @@ import java.awt.Graphics2D;
  */
 public class Bullet extends GameObject {
          
-    public Bullet(float x, float y,  float r) {
-  
+    /**
+     * Creates an uninitialized bullet, for use by an ObjectPool. Call init()
+     * before adding it to the game.
+     */
+    public Bullet(GameSession session) {
+        super(session);
+    }
+
+    public Bullet(GameSession session, float x, float y,  float r) {
+        super(session);
+        init(x, y, r);
+    }
+
+    /**
+     * Places the bullet and sends it on its way.
+     * @param x Horizontal coordinate.
+     * @param y Vertical coordinate.
+     * @param r The direction of travel in degrees.
+     */
+    public final void init(float x, float y, float r) {
         setXY(x, y);
         setSpeed(12);
         setDirection(r);
         setTeam(Friend);
+        // Bullets fly off the screen and die
+        setIsScreenWrapEnabled(false);
     }
    
+    /**
+     * Every bullet looks the same, so they all share one sprite.
+     * @return The bullet sprite.
+     */
     @Override
-    protected void drawToBuffer( Graphics2D g2d ) {
-        g2d.setPaint(Color.RED);
-        g2d.drawRect(0, 0, 2, 2);
+    public Sprite getSprite() {
+        return SPRITE;
     }
     
     @Override
-    public void draw(Graphics2D g2d ) {
-        super.draw(g2d);
-        //g2d.translate(getX(),getY());
-
-        
+    public Outline getOutline() {
+        return OUTLINE;
     }
 
     @Override
     public void update() {
         
         if( isOffScreen() ) { setState(EntityState.Killed); }
-        
-        float adjustment = 90;
-        float vx = (float) Math.cos(Math.toRadians(getDirection() - adjustment)) * getSpeed() ;
-        float vy = (float) Math.sin(Math.toRadians(getDirection() - adjustment)) * getSpeed() ;
-        
-        moveToward(vx, vy);
     }
 
     @Override
@@ -72,5 +88,19 @@ public class Bullet extends GameObject {
             o.damage(this, 1);
         }
     }
+
+    private static Sprite createSprite() {
+        // Same size as the default 10x10 object, plus one for the outline
+        BufferedImage image = new BufferedImage(11, 11, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setPaint(Color.RED);
+        g2d.drawRect(0, 0, 2, 2);
+        g2d.dispose();
+        return new Sprite(image);
+    }
+
+    private static final Sprite SPRITE = createSprite();
+    private static final Outline OUTLINE = new Outline(
+            new int[]{0, 2, 2, 0}, new int[]{0, 0, 2, 2}, 4, true, Color.RED, null);
     
 }
@@ -18,16 +18,16 @@
 */
 package com.sudolink.entities;
 
-import com.sudolink.game.GameCanvas;
-import com.sudolink.game.GameMain;
 import com.sudolink.enumeration.EntityState;
 import static com.sudolink.enumeration.EntityState.Active;
 import com.sudolink.enumeration.Team;
-import java.awt.Color;
+import com.sudolink.game.GameSession;
+import com.sudolink.manager.EntityStore;
+import com.sudolink.manager.ObjectPool;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 
 /**
  * The base of all in-game objects (anything that needs to be drawn or updated).
@@ -39,54 +39,108 @@ public abstract class GameObject {
     public static final short TURN_RIGHT = 1;
     public static final short TURN_NONE = 0;
     
+    /**
+     * @param session The session this object belongs to. Its row is taken
+     * from the session's entity store.
+     */
+    protected GameObject(GameSession session) {
+        this.session = session;
+        store = session.getObjects().getEntityStore();
+        id = store.allocate();
+    }
     
     /**
-     * The update method is called on each game loop and manages updating the
-     * position of the game objects. Guaranteed to be called before the draw.
+     * The update method is called on each game loop and manages the behavior
+     * of the game object. Movement, turning and screen wrap have already been
+     * applied by EntityStore.integrate() when this is called. Guaranteed to be
+     * called before the draw.
      */
     public void update() {
-        screenWrap();
     }
 
     /**
-     * The draw method handles drawing the object to the screen. For performance
-     * reasons, be sure to update game object position in the update() method.
-     * @param g2d The Graphics context.
+     * Returns the line art of this object for the RasterRenderer. Objects
+     * that are plain line art override this; the default returns null, and
+     * the object is drawn from its sprite instead.
+     * 
+     * @return The outline, or null.
      */
-    public void draw(Graphics2D g2d) {
-        if( backbuffer == null ) {
-            initBuffer();
-            drawToBuffer(backbuffer.createGraphics());
-        }
-        
-        g2d.translate(getX() + getWidth() / 2, getY() + getHeight() / 2);
-        g2d.rotate(Math.toRadians(getRotation()));
-        g2d.translate(-getWidth() / 2, -getHeight() / 2);
-        // Solves the problem of polygons looking crappy during rotation.
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.drawImage(backbuffer, 0, 0, null);
+    public Outline getOutline() {
+        return null;
     }
-    
+
     /**
-     * Draws the collision rectangle for this object. Used for debugging.
-     * @param g2d 
+     * Returns the picture of this object. By default this is the object's own
+     * backbuffer, painted by drawToBuffer() the first time it is needed. 
+     * Objects that share their graphics with others (see Asteroid) override 
+     * this instead. Returns null if there is nothing to draw.
+     * 
+     * Sprites are handed to the render thread, so the image behind a sprite
+     * must never change once it has been returned from here.
+     * 
+     * @return The sprite to draw.
      */
-    protected void drawBoundingBox(Graphics2D g2d) {
-        if (GameMain.getInstance().isDebug()) {
-            g2d.setPaint(Color.DARK_GRAY);
-            Rectangle r = getBounds();
-            g2d.drawRect(0, 0, r.width, r.height);
+    public Sprite getSprite() {
+        if( backbuffer == null || isBufferDirty ) {
+            prepareBuffer();
         }
+        return sprite;
     }
     
     /**
-     * @return Returns a rectangle that represents the boundaries of the game object.
+     * Returns a rectangle that represents the boundaries of the game object.
+     * This allocates; the collision code uses getMinX() and friends instead.
+     * 
+     * @return The boundaries of the game object.
      */
     public Rectangle getBounds() {
-        Rectangle rect = new Rectangle((int) x, (int) y, (int) getWidth(), (int) getHeight());
+        Rectangle rect = new Rectangle(
+                (int) getMinX(),
+                (int) getMinY(),
+                (int) (getMaxX() - getMinX()),
+                (int) (getMaxY() - getMinY()));
         return rect;
     }
 
+    /**
+     * @return The left edge of the collision bounds.
+     */
+    public float getMinX() {
+        return store.getMinX(id);
+    }
+
+    /**
+     * @return The top edge of the collision bounds.
+     */
+    public float getMinY() {
+        return store.getMinY(id);
+    }
+
+    /**
+     * @return The right edge of the collision bounds.
+     */
+    public float getMaxX() {
+        return store.getMaxX(id);
+    }
+
+    /**
+     * @return The bottom edge of the collision bounds.
+     */
+    public float getMaxY() {
+        return store.getMaxY(id);
+    }
+
+    /**
+     * Tests whether the collision bounds of this object overlap another's.
+     * Objects with an empty bounds (zero width or height) never intersect.
+     * 
+     * @param o The other object.
+     * @return True if the bounds overlap.
+     */
+    public boolean intersects(GameObject o) {
+        return store.intersects(id, o.id);
+    }
+
     /**
      * Handles collisions with another game object. Subclasses must implement
      * this behavior to suit the game rules.
@@ -97,11 +151,12 @@ public abstract class GameObject {
     
     /**
      * Draws to a buffer instead of the graphics context. Implement this method
-     * in subclasses.
+     * in subclasses, unless they override getSprite().
      * 
      * @param g2d 
      */
-    protected abstract void drawToBuffer( Graphics2D g2d );
+    protected void drawToBuffer( Graphics2D g2d ) {
+    }
     
     /**
      * Another object may cause damage to this object. The base object does not
@@ -115,15 +170,140 @@ public abstract class GameObject {
         // Base object cannot take damage. Override.
     }
 
+    /**
+     * Restores this object to the state of a freshly constructed object so it
+     * can be handed out again by an ObjectPool. The backbuffer is marked stale
+     * and redrawn before the next frame. Subclasses that are pooled should
+     * override this to clear their own fields, and call super.reset().
+     */
+    public void reset() {
+        z = 0;
+        store.reset(id);
+        team = Team.Neutral;
+        isBufferDirty = true;
+    }
+
+    /**
+     * Called once the object has been removed from the game. Pooled objects
+     * are returned to their pool, everything else is left for the garbage 
+     * collector.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        } else if (id >= 0) {
+            // Not coming back, give up the row in the entity store.
+            store.free(id);
+            id = -1;
+        }
+    }
+
+    /**
+     * Writes the state of this object for a saved game: its depth, its team
+     * and its row in the entity store. Subclasses with state of their own
+     * override this and load(), calling the super method first.
+     * @param buffer The buffer to write to.
+     */
+    public void save(ByteBuffer buffer) {
+        buffer.putShort((short) z);
+        buffer.put((byte) team.ordinal());
+        store.save(id, buffer);
+    }
+
+    /**
+     * Reads the state written by save() into this object, which must be the
+     * same kind of object in its reset state.
+     * @param buffer The buffer to read from.
+     */
+    public void load(ByteBuffer buffer) {
+        z = buffer.getShort();
+        team = TEAMS[buffer.get()];
+        store.load(id, buffer);
+        isBufferDirty = true;
+    }
+
+    /**
+     * @return True if this object is kept by its owner when the world is
+     * cleared.
+     */
+    public boolean isRetained() {
+        return isRetained;
+    }
+
+    /**
+     * Marks an object that its owner keeps for the whole game, such as the
+     * session's ship and score. GameObjectsManager.clear() takes a retained
+     * object out of the game without recycling it, so it can be put back.
+     * @param isRetained True to keep the object.
+     */
+    public void setRetained(boolean isRetained) {
+        this.isRetained = isRetained;
+    }
+
+    /**
+     * Marks whether this object is part of the game. Only live objects are
+     * moved by EntityStore.integrate(). Used by GameObjectsManager.
+     * @param isLive True when the object enters the game.
+     */
+    public void setLive(boolean isLive) {
+        store.setFlag(id, EntityStore.FLAG_LIVE, isLive);
+    }
+
+    /**
+     * @return The row of this object in the entity store.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The pool this object was obtained from, or null if it was
+     * created directly.
+     */
+    public ObjectPool<?> getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool this object should be returned to. Used by ObjectPool.
+     * @param pool The owning pool, or null.
+     */
+    public void setPool(ObjectPool<?> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return The next object waiting to be spawned. Used by SpawnQueue.
+     */
+    public GameObject getSpawnNext() {
+        return spawnNext;
+    }
+
+    /**
+     * Links this object to the next one waiting to be spawned. Used by
+     * SpawnQueue.
+     * @param next The next object, or null.
+     */
+    public void setSpawnNext(GameObject next) {
+        this.spawnNext = next;
+    }
+
+    /**
+     * @return The session this object belongs to.
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
     /**
      * Reports if part of the game object has exited the screen. 
      * @return True if offscreen.
      */
     public boolean isOffScreen() {
         return getX() < 0
-                || getX() > GameCanvas.SCREEN_WIDTH
+                || getX() > session.getWidth()
                 || getY() < 0
-                || getY() > GameCanvas.SCREEN_HEIGHT;
+                || getY() > session.getHeight();
 
     }
 
@@ -143,7 +323,7 @@ public abstract class GameObject {
      * @param y Verical coordinate.
      */
     public void moveToward(float x, float y) {
-        setXY(this.x + x, this.y + y);
+        setXY(getX() + x, getY() + y);
     }
 
     /**
@@ -168,7 +348,7 @@ public abstract class GameObject {
      * @return the speed
      */
     public float getSpeed() {
-        return speed;
+        return store.getSpeed(id);
     }
 
     /**
@@ -176,7 +356,7 @@ public abstract class GameObject {
      * @param speed the speed to set
      */
     public void setSpeed(float speed) {
-            this.speed = speed;
+        store.setSpeed(id, speed);
     }
 
     /**
@@ -188,7 +368,7 @@ public abstract class GameObject {
      * @return the direction as degrees.
      */
     public float getDirection() {
-        return direction;
+        return store.getDirection(id);
     }
 
     /**
@@ -197,12 +377,7 @@ public abstract class GameObject {
      * @param direction The direction to set expressed as degrees.
      */
     public void setDirection(float direction) {
-        this.direction = direction;
-        if (this.direction > 360) {
-            this.direction -= 360;
-        } else if (this.direction < 0) {
-            this.direction += 360;
-        }
+        store.setDirection(id, EntityStore.normalize(direction));
     }
 
     /**
@@ -212,12 +387,7 @@ public abstract class GameObject {
      * @param rotation the rotation to set expressed as degrees.
      */
     public void setRotation(float rotation) {
-        this.rotation = rotation;
-        if (this.rotation > 360) {
-            this.rotation -= 360;
-        } else if (this.rotation < 0) {
-            this.rotation += 360;
-        }
+        store.setRotation(id, EntityStore.normalize(rotation));
     }
 
     /**
@@ -226,7 +396,7 @@ public abstract class GameObject {
      * @return the rotation expressed as degrees.
      */
     public float getRotation() {
-        return rotation;
+        return store.getRotation(id);
     }
 
     /**
@@ -236,7 +406,7 @@ public abstract class GameObject {
      * @param value The amount to increment (degrees).
      */
     public void increaseRotation(float value) {
-            this.rotation += value;
+        store.addRotation(id, value);
     }
 
     /**
@@ -244,10 +414,7 @@ public abstract class GameObject {
      * @return the turnRate
      */
     public float getTurnRate() {
-        if (turnRate > turnRateMax) {
-            turnRate = turnRateMax;
-        }
-        return turnRate;
+        return store.clampedTurnRate(id);
     }
 
     /**
@@ -257,7 +424,7 @@ public abstract class GameObject {
      * TURN_LEFT, TURN_RIGHT, TURN_NONE.
      */
     public void setTurnRate(float turnRate, int turnDirection) {
-            this.turnRate = turnRate * turnDirection;
+        store.setTurnRate(id, turnRate * turnDirection);
     }
 
     /**
@@ -268,7 +435,7 @@ public abstract class GameObject {
      * TURN_LEFT, TURN_RIGHT, TURN_NONE.
      */
     public void increaseTurnRate(float increase, int turnDirection) {
-        turnRate += increase * turnDirection;
+        store.setTurnRate(id, store.getTurnRate(id) + increase * turnDirection);
     }
 
     /**
@@ -278,7 +445,7 @@ public abstract class GameObject {
      * @return the turnRateMax 
      */
     public float getTurnRateMax() {
-        return turnRateMax;
+        return store.getTurnRateMax(id);
     }
 
     /**
@@ -287,9 +454,7 @@ public abstract class GameObject {
      * @param turnRateMax the turnRateMax to set
      */
     public void setTurnRateMax(float turnRateMax) {
-    
-            this.turnRateMax = turnRateMax;
-     
+        store.setTurnRateMax(id, turnRateMax);
     }
 
     /**
@@ -298,13 +463,15 @@ public abstract class GameObject {
      */
     public void accelerate(float amount) {
 
-        speed += amount;
+        float speed = store.getSpeed(id) + amount;
+        float speedMax = store.getSpeedMax(id);
 
         int posneg = (speed < 0) ? -1 : 1;
 
         if( Math.abs(speed) > speedMax ) {
             speed = speedMax * posneg;
         }
+        store.setSpeed(id, speed);
         //lock the direction of motion
     }
 
@@ -321,7 +488,7 @@ public abstract class GameObject {
      * @param state the state to set
      */
     public void setState(EntityState state) {
-        this.state = state;
+        store.setState(id, state);
     }
 
     /**
@@ -329,7 +496,7 @@ public abstract class GameObject {
      * @return EntityState
      */
     public EntityState getState() {
-        return state;
+        return store.getState(id);
     }
 
     /**
@@ -337,7 +504,32 @@ public abstract class GameObject {
      * @return the x
      */
     public float getX() {
-        return x;
+        return store.getX(id);
+    }
+
+    /**
+     * Returns the x coordinate of this object before the last tick, for
+     * interpolation. Subclasses that override getX() are offset the same way.
+     * @return the previous x
+     */
+    public float getPreviousX() {
+        return getX() + store.getPreviousX(id) - store.getX(id);
+    }
+
+    /**
+     * Returns the y coordinate of this object before the last tick.
+     * @return the previous y
+     */
+    public float getPreviousY() {
+        return getY() + store.getPreviousY(id) - store.getY(id);
+    }
+
+    /**
+     * Returns the rotation of this object before the last tick.
+     * @return the previous rotation
+     */
+    public float getPreviousRotation() {
+        return store.getPreviousRotation(id);
     }
 
     /**
@@ -345,9 +537,7 @@ public abstract class GameObject {
      * @param x the x to set
      */
     public void setX(float x) {
-      
-            this.x = x;
-      
+        store.setX(id, x);
     }
 
     /**
@@ -355,7 +545,7 @@ public abstract class GameObject {
      * @return the y
      */
     public float getY() {
-        return y;
+        return store.getY(id);
     }
 
     /**
@@ -363,9 +553,7 @@ public abstract class GameObject {
      * @param y the y to set
      */
     public void setY(float y) {
- 
-            this.y = y;
-    
+        store.setY(id, y);
     }
 
     /**
@@ -375,7 +563,7 @@ public abstract class GameObject {
      * @return the isScreenWrapEnabled
      */
     public boolean isScreenWrapEnabled() {
-        return isScreenWrapEnabled;
+        return store.hasFlag(id, EntityStore.FLAG_WRAP);
     }
 
     /**
@@ -384,8 +572,7 @@ public abstract class GameObject {
      * @param isScreenWrapEnabled the isScreenWrapEnabled to set
      */
     public void setIsScreenWrapEnabled(boolean isScreenWrapEnabled) {
-        
-        this.isScreenWrapEnabled = isScreenWrapEnabled;
+        store.setFlag(id, EntityStore.FLAG_WRAP, isScreenWrapEnabled);
     }
 
     /**
@@ -394,7 +581,7 @@ public abstract class GameObject {
      * @return the height
      */
     public final float getHeight() {
-        return height;
+        return store.getHeight(id);
     }
 
     /**
@@ -403,7 +590,7 @@ public abstract class GameObject {
      * @param height the height to set
      */
     public void setHeight(float height) {
-        this.height = height;
+        store.setHeight(id, height);
     }
 
     /**
@@ -412,7 +599,7 @@ public abstract class GameObject {
      * @return the width
      */
     public final float getWidth() {
-        return width;
+        return store.getWidth(id);
     }
 
     /**
@@ -421,7 +608,7 @@ public abstract class GameObject {
      * @param width the width to set
      */
     public void setWidth(float width) {
-        this.width = width;
+        store.setWidth(id, width);
     }
 
     /**
@@ -448,10 +635,35 @@ public abstract class GameObject {
      * @param speedMax the speedMax to set
      */
     public void setSpeedMax(float speedMax) {
-        this.speedMax = speedMax;
+        store.setSpeedMax(id, speedMax);
     }
     
     // <editor-fold defaultstate="collapsed" desc="Protected Methods">
+
+    /**
+     * Sets how the turn rate is applied when the object is moved. A spinning
+     * object (like an asteroid) rotates in place while travelling in a fixed
+     * direction. A steering object (like the ship) turns its direction of
+     * travel along with its rotation.
+     *
+     * @param spin True if the object spins.
+     * @param steer True if the object steers.
+     */
+    protected void setTurnMode(boolean spin, boolean steer) {
+        store.setFlag(id, EntityStore.FLAG_SPIN, spin);
+        store.setFlag(id, EntityStore.FLAG_STEER, steer);
+    }
+
+    /**
+     * Shrinks or grows the collision bounds relative to the width and height
+     * of the object, for objects whose shape doesn't fill their rectangle.
+     * 
+     * @param scaleX Horizontal scale of the bounds.
+     * @param scaleY Vertical scale of the bounds.
+     */
+    protected void setBoundsScale(float scaleX, float scaleY) {
+        store.setBoundsScale(id, scaleX, scaleY);
+    }
     
     protected final void initBuffer() {
         BufferedImage buffer = new BufferedImage(
@@ -464,6 +676,13 @@ public abstract class GameObject {
     protected void refreshBuffer() {
         setBuffer(null);
     }
+
+    /**
+     * Marks the backbuffer as stale, so it is redrawn before the next frame.
+     */
+    protected void redrawBuffer() {
+        isBufferDirty = true;
+    }
     
 
     
@@ -480,14 +699,13 @@ public abstract class GameObject {
     
     protected void setBuffer(BufferedImage buffer) {
         backbuffer = buffer;
+        sprite = (buffer == null) ? null : new Sprite(buffer);
     }
 
     protected boolean isCollision(GameObject o) {
 
         if (o != this && o.getState() == Active) {
-            Rectangle r = getBounds();
-            Rectangle ro = o.getBounds();
-            return r.intersects(ro);
+            return intersects(o);
         }
         return false;
     }
@@ -495,43 +713,34 @@ public abstract class GameObject {
     // </editor-fold>
     
     // <editor-fold defaultstate="collapsed" desc="Private Methods">
-    private void screenWrap() {
-        if (isScreenWrapEnabled == false) {
-            return;
-        }
-
-        if (getX() < -10 && getDirection() > 180) {
-            setX(getX() + GameCanvas.SCREEN_WIDTH);
-            setY(GameCanvas.SCREEN_HEIGHT - getY());
-        } else if (getX() > GameCanvas.SCREEN_WIDTH && getDirection() <= 180) {
-            setX(getX() - GameCanvas.SCREEN_WIDTH);
-            setY(GameCanvas.SCREEN_HEIGHT - getY());
-        } else if (getY() > GameCanvas.SCREEN_HEIGHT && (getDirection() >= 90 && getDirection() <= 270)) {
-            setY(getY() - GameCanvas.SCREEN_HEIGHT);
-            setX(GameCanvas.SCREEN_WIDTH - getX());
-        } else if (getY() < -10 && (getDirection() > 270 || getDirection() < 90)) {
-            setY(getY() + GameCanvas.SCREEN_HEIGHT);
-            setX(GameCanvas.SCREEN_WIDTH - getX());
+    private void prepareBuffer() {
+        // The render thread may still be drawing the old sprite, so a stale
+        // buffer is replaced rather than cleared and redrawn.
+        if (backbuffer == null || isBufferDirty
+                || backbuffer.getWidth() != (int) getWidth() + 1
+                || backbuffer.getHeight() != (int) getHeight() + 1) {
+            initBuffer();
         }
+        Graphics2D g = backbuffer.createGraphics();
+        drawToBuffer(g);
+        g.dispose();
+        isBufferDirty = false;
     }
     // </editor-fold>
     
     // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final Team[] TEAMS = Team.values();
+    private final GameSession session;
+    private final EntityStore store;
+    private int id;
     private int z = 0;
-    private float x = 0;
-    private float y = 0;
-    private float direction = 0;
-    private float speed = 0;
-    private float speedMax = 3;
-    private float rotation = 0;
-    private float turnRate = 0;
-    private float turnRateMax = 3;
-    private EntityState state = Active;
-    private boolean isScreenWrapEnabled = true;
-    private float height = 10;
-    private float width = 10;
     private Team team = Team.Neutral;
     private BufferedImage backbuffer;
+    private Sprite sprite;
+    private boolean isBufferDirty;
+    private ObjectPool<?> pool;
+    private GameObject spawnNext;
+    private boolean isRetained;
     // </editor-fold>
 
 
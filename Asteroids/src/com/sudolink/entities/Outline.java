@@ -0,0 +1,100 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.entities;
+
+import java.awt.Color;
+
+/**
+ * The line art of a game object for the RasterRenderer: a polygon or a
+ * polyline in the object's local coordinates, with an outline color and an
+ * optional fill. Outlines are immutable, so they can be shared between
+ * objects and handed to the render thread.
+ *
+ * @author Matthew MacGregor
+ */
+public class Outline {
+
+    /**
+     * Creates an open polyline.
+     * @param xs Local x coordinates. The array is not copied and must not be
+     * modified afterwards.
+     * @param ys Local y coordinates, likewise.
+     * @param stroke The line color.
+     */
+    public Outline(int[] xs, int[] ys, Color stroke) {
+        this(xs, ys, xs.length, false, stroke, null);
+    }
+
+    /**
+     * @param xs Local x coordinates. The array is not copied and must not be
+     * modified afterwards.
+     * @param ys Local y coordinates, likewise.
+     * @param npoints The number of points to use.
+     * @param closed True if the last point joins back to the first.
+     * @param stroke The line color.
+     * @param fill The color inside a closed outline, or null for none.
+     */
+    public Outline(int[] xs, int[] ys, int npoints, boolean closed, Color stroke, Color fill) {
+        this.xs = xs;
+        this.ys = ys;
+        this.npoints = npoints;
+        this.closed = closed;
+        this.strokeRgb = stroke.getRGB();
+        this.filled = closed && fill != null;
+        this.fillRgb = (fill == null) ? 0 : fill.getRGB();
+    }
+
+    public int[] getXPoints() {
+        return xs;
+    }
+
+    public int[] getYPoints() {
+        return ys;
+    }
+
+    public int getPointCount() {
+        return npoints;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isFilled() {
+        return filled;
+    }
+
+    public int getStrokeRGB() {
+        return strokeRgb;
+    }
+
+    public int getFillRGB() {
+        return fillRgb;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final int[] xs;
+    private final int[] ys;
+    private final int npoints;
+    private final boolean closed;
+    private final boolean filled;
+    private final int strokeRgb;
+    private final int fillRgb;
+    // </editor-fold>
+}
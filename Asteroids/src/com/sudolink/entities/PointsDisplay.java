@@ -18,7 +18,9 @@
 */
 package com.sudolink.entities;
 
+import com.sudolink.game.GameSession;
 import java.awt.Font;
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -28,8 +30,8 @@ public class PointsDisplay extends TextDisplay {
 
     private int points;
   
-    public PointsDisplay(Font f, String text) {
-        super(f, text);
+    public PointsDisplay(GameSession session, Font f, String text) {
+        super(session, f, text);
         setText("Points: " + this.points);
     }
 
@@ -48,6 +50,18 @@ public class PointsDisplay extends TextDisplay {
         setText("Points: " + this.points);
     }
 
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(points);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        points = buffer.getInt();
+    }
+
     public void addPoints(int points) {
         this.points += points;
         setText("Points: " + this.points);
@@ -22,21 +22,22 @@ import com.sudolink.enumeration.EntityState;
 import static com.sudolink.enumeration.EntityState.Active;
 import static com.sudolink.enumeration.EntityState.Impervious;
 import com.sudolink.manager.AudioManager;
-import com.sudolink.game.GameMain;
+import com.sudolink.game.GameSession;
 import static com.sudolink.enumeration.EntityState.Passive;
 import static com.sudolink.enumeration.Team.Friend;
 import com.sudolink.game.GameTimer;
 import com.sudolink.manager.GameObjectsManager;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
+import java.nio.ByteBuffer;
 
 /**
  * The player's ship.
  */
 public class Ship extends GameObject {
 
-    public Ship() {
+    public Ship(GameSession session) {
+        super(session);
         int unit = 8;
         int w = unit * 2;
         int h = unit * 3;
@@ -46,6 +47,10 @@ public class Ship extends GameObject {
         xpoly = new int[]{unit, w, 0};
         ypoly = new int[]{0, h, h};
         setZ(1000);
+        setTurnMode(false, true);
+        // The bounds of this ship are slightly different than a typical
+        // rectangular object.
+        setBoundsScale(1f, 0.8f);
 
         setTeam(Friend);
         
@@ -72,8 +77,6 @@ public class Ship extends GameObject {
     @Override
     protected void drawToBuffer( Graphics2D g2d ) {
    
-        drawBoundingBox(g2d);
-
         g2d.setPaint(Color.BLACK);
         g2d.fillPolygon(xpoly, ypoly, 3);
         g2d.setPaint(shipColor);
@@ -82,37 +85,26 @@ public class Ship extends GameObject {
     }
     
     /**
-     * Update.
+     * The outline changes color with the ship, so a new one is made (and the
+     * old one left to any frame still drawing it) when the color changes.
+     * @return The outline for the current color.
      */
     @Override
-    public void update() {
-        super.update();
-        float newHeading = getDirection() + getTurnRate();
-        setRotation(newHeading);
-        setDirection(newHeading);
-
-        float adjustment = 90;
-        float vx = (float) Math.cos(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-        float vy = (float) Math.sin(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-        moveToward(vx, vy);
-        imperviumTimer.tick();
+    public Outline getOutline() {
+        if (outline == null || outlineColor != shipColor) {
+            outline = new Outline(xpoly, ypoly, 3, true, shipColor, Color.BLACK);
+            outlineColor = shipColor;
+        }
+        return outline;
     }
-
+    
     /**
-     * The boundaries of this ship object are slightly different than a typical
-     * rectangular object.
-     * 
-     * @return the bounds of this object.
+     * Update.
      */
     @Override
-    public Rectangle getBounds() {
-        Rectangle rect = new Rectangle(
-                (int) (getX()),
-                (int) (getY()),
-                (int) (getWidth()),
-                (int) (getHeight() * 0.8)
-        );
-        return rect;
+    public void update() {
+        super.update();
+        imperviumTimer.tick();
     }
 
     /**
@@ -121,9 +113,12 @@ public class Ship extends GameObject {
     public void fire() {
         EntityState s = getState();
         if (s == Active || s == Impervious) {
-            Rectangle r = getBounds();
-            Bullet b = new Bullet((int) r.getCenterX(), (int) r.getCenterY(), getDirection());
-            GameObjectsManager.getInstance().add(b);
+            int centerX = (int) ((getMinX() + getMaxX()) / 2);
+            int centerY = (int) ((getMinY() + getMaxY()) / 2);
+            GameObjectsManager gom = getSession().getObjects();
+            Bullet b = gom.getBulletPool().obtain();
+            b.init(centerX, centerY, getDirection());
+            gom.add(b);
         }
         playShootClip();
     }
@@ -146,6 +141,32 @@ public class Ship extends GameObject {
         refreshBuffer();
     }
 
+    /**
+     * Saves the ship's color along with the rest of its state, and how long
+     * it has left to be impervious.
+     * @param buffer The buffer to write to.
+     */
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        int color = 0;
+        for (int i = 0; i < COLORS.length; i++) {
+            if (COLORS[i] == shipColor) {
+                color = i;
+            }
+        }
+        buffer.put((byte) color);
+        imperviumTimer.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        shipColor = COLORS[buffer.get()];
+        imperviumTimer.load(buffer);
+        refreshBuffer();
+    }
+
     /**
      * Checks if the ship is in an impervious state.
      * @return true if the ship is impervious.
@@ -206,11 +227,14 @@ public class Ship extends GameObject {
     private void explode() {
         this.setState(Passive);
         playExplosionClip();
+        GameObjectsManager gom = getSession().getObjects();
         for (int i = 0; i < 7; i++) {
-            GameObjectsManager.getInstance().add(new StickParticle(getX(), getY()));
+            StickParticle p = gom.getParticlePool().obtain();
+            p.init(getX(), getY());
+            gom.add(p);
         }
 
-        GameMain.getInstance().respawn();
+        getSession().respawn();
     }
     
     /**
@@ -229,8 +253,12 @@ public class Ship extends GameObject {
     // </editor-fold>
     
     // <editor-fold defaultstate="collapsed" desc="Private Members">
+    // Every color the ship can be, by the index it is saved as
+    private static final Color[] COLORS = {Color.ORANGE, Color.GRAY, Color.DARK_GRAY};
     private final int[] xpoly;
     private final int[] ypoly;
+    private Outline outline;
+    private Color outlineColor;
 
     private final AudioManager audioManager;
     private Color shipColor = Color.ORANGE;
@@ -0,0 +1,98 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.entities;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * A rectangular region of an image that a game object draws as its picture.
+ * The region may be a whole image (an object's own backbuffer) or one cell of
+ * an atlas shared by many objects.
+ *
+ * @author Matthew MacGregor
+ */
+public class Sprite {
+
+    /**
+     * Creates a sprite covering the whole image.
+     * @param image The source image.
+     */
+    public Sprite(BufferedImage image) {
+        this(image, 0, 0, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Creates a sprite covering part of an image.
+     * @param image The source image.
+     * @param sx Left edge of the region in the image.
+     * @param sy Top edge of the region in the image.
+     * @param width Width of the region.
+     * @param height Height of the region.
+     */
+    public Sprite(BufferedImage image, int sx, int sy, int width, int height) {
+        this.image = image;
+        this.sx = sx;
+        this.sy = sy;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Draws the sprite with its top left corner at x, y.
+     * @param g2d The Graphics context.
+     * @param x Horizontal coordinate.
+     * @param y Vertical coordinate.
+     */
+    public void draw(Graphics2D g2d, int x, int y) {
+        if (sx == 0 && sy == 0 && width == image.getWidth() && height == image.getHeight()) {
+            g2d.drawImage(image, x, y, null);
+        } else {
+            g2d.drawImage(image, x, y, x + width, y + height, sx, sy, sx + width, sy + height, null);
+        }
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getSourceX() {
+        return sx;
+    }
+
+    public int getSourceY() {
+        return sy;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final BufferedImage image;
+    private final int sx;
+    private final int sy;
+    private final int width;
+    private final int height;
+    // </editor-fold>
+}
@@ -19,9 +19,13 @@
 package com.sudolink.entities;
 
 import static com.sudolink.enumeration.EntityState.Killed;
+import com.sudolink.enumeration.RandomStream;
+import com.sudolink.game.GameSession;
+import com.sudolink.manager.SplitMix;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 
 /**
  * When the ship blows up, debris is represented by "sticks" that fly in all
@@ -31,30 +35,75 @@ import java.awt.image.BufferedImage;
  */
 public class StickParticle extends GameObject {
 
-    public StickParticle(float x, float y) {
+    /**
+     * Creates an uninitialized particle, for use by an ObjectPool. Call init()
+     * before adding it to the game.
+     */
+    public StickParticle(GameSession session) {
+        super(session);
+        random = session.getRandom().get(RandomStream.Particles);
+    }
+
+    public StickParticle(GameSession session, float x, float y) {
+        this(session);
+        init(x, y);
+    }
+
+    /**
+     * Places the particle and gives it a random spin, speed and length.
+     * @param x Horizontal coordinate.
+     * @param y Vertical coordinate.
+     */
+    public final void init(float x, float y) {
         setXY(x, y);
-        float tr = (float) Math.random() * 15;
-        tr = (Math.random() > 0.5) ? tr : tr * -1;
-        float sp = (float) Math.random() * (3 - 1);
-        lifespanMax = (int) (Math.random() * (100 - 50));
+        float tr = (float) random.nextDouble() * 15;
+        tr = random.nextBoolean() ? tr : tr * -1;
+        float sp = (float) random.nextDouble() * (3 - 1);
+        lifespanMax = random.nextInt(100 - 50);
         setTurnRate(tr, GameObject.TURN_RIGHT);
-        int direction = 1 + (int) (Math.random() * 360);
+        setTurnMode(true, false);
+        int direction = 1 + random.nextInt(360);
         setDirection(direction);
         setSpeed(sp);
-        length = (int) ((Math.random()) * (12 - 5) + 5);
+        length = random.nextInt(12 - 5) + 5;
     }
 
     @Override
-    protected void drawToBuffer( Graphics2D g2d ) {
-        
-        g2d.setPaint(Color.ORANGE);
-        g2d.drawLine(0, 0, length, length);
- 
+    public void reset() {
+        super.reset();
+        lifespan = 0;
+        lifespanMax = 50;
+        length = 12;
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.put((byte) length);
+        buffer.putShort((short) lifespan);
+        buffer.putShort((short) lifespanMax);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        length = buffer.get();
+        lifespan = buffer.getShort();
+        lifespanMax = buffer.getShort();
+    }
+
+    /**
+     * Particles only differ by length, so they share one sprite per length.
+     * @return The sprite for this particle's length.
+     */
+    @Override
+    public Sprite getSprite() {
+        return SPRITES[length];
     }
     
     @Override
-    public void draw(Graphics2D g2d) {
-        super.draw(g2d);
+    public Outline getOutline() {
+        return OUTLINES[length];
     }
 
     @Override
@@ -64,13 +113,6 @@ public class StickParticle extends GameObject {
         }
 
         super.update();
-        increaseRotation(getTurnRate());
-
-        float adjustment = 90;
-        float vx = (float) Math.cos(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-        float vy = (float) Math.sin(Math.toRadians(getDirection() - adjustment)) * getSpeed();
-
-        moveToward(vx, vy);
         lifespan++;
     }
 
@@ -79,7 +121,34 @@ public class StickParticle extends GameObject {
         // No op
     }
 
+    private static Outline[] createOutlines() {
+        Outline[] outlines = new Outline[MAX_LENGTH + 1];
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            outlines[length] = new Outline(
+                    new int[]{0, length}, new int[]{0, length}, Color.ORANGE);
+        }
+        return outlines;
+    }
+
+    private static Sprite[] createSprites() {
+        Sprite[] sprites = new Sprite[MAX_LENGTH + 1];
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            // Same size as the default 10x10 object, plus one for the outline
+            BufferedImage image = new BufferedImage(11, 11, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = image.createGraphics();
+            g2d.setPaint(Color.ORANGE);
+            g2d.drawLine(0, 0, length, length);
+            g2d.dispose();
+            sprites[length] = new Sprite(image);
+        }
+        return sprites;
+    }
+
     // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int MAX_LENGTH = 12;
+    private static final Sprite[] SPRITES = createSprites();
+    private static final Outline[] OUTLINES = createOutlines();
+    private final SplitMix random;
     private int lifespan = 0;
     private int lifespanMax = 50;
     private int length = 12;
@@ -19,11 +19,13 @@
 package com.sudolink.entities;
 
 import com.sudolink.enumeration.Team;
+import com.sudolink.game.GameSession;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.nio.ByteBuffer;
 
 /**
  * A GameObject that renders text to the screen.
@@ -32,8 +34,8 @@ import java.awt.Graphics2D;
  */
 public class TextDisplay extends GameObject {
 
-    public TextDisplay(Font f, String text) {
-        super();
+    public TextDisplay(GameSession session, Font f, String text) {
+        super(session);
         message = "";
         font = f;
         foreground = Color.WHITE;
@@ -45,8 +47,8 @@ public class TextDisplay extends GameObject {
         resize();
     }
     
-    public TextDisplay( Font f ) {
-        this( f, "" );
+    public TextDisplay( GameSession session, Font f ) {
+        this( session, f, "" );
     }
 
     /**
@@ -58,15 +60,20 @@ public class TextDisplay extends GameObject {
         //Does nothing
     }
 
+    /**
+     * Redraws the text into a new buffer if it has changed since the last
+     * frame.
+     * @return The sprite, or null while the display is disabled.
+     */
     @Override
-    public void draw(Graphics2D g2d) {
-        if (isEnabled) {
-            if (shouldRedraw) {
-                setBuffer(null);
-            }
-
-            super.draw(g2d);
+    public Sprite getSprite() {
+        if (!isEnabled) {
+            return null;
+        }
+        if (shouldRedraw) {
+            setBuffer(null);
         }
+        return super.getSprite();
     }
 
     /**
@@ -110,6 +117,28 @@ public class TextDisplay extends GameObject {
     }
  
     
+    /**
+     * Saves the text and whether it is showing. The font, colors and
+     * centering aren't saved; load into a display made the same way.
+     * @param buffer The buffer to write to.
+     */
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        saveText(message, buffer);
+        buffer.put((byte) (isEnabled ? 1 : 0));
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        message = loadText(buffer);
+        isEnabled = buffer.get() != 0;
+        shouldRedraw = true;
+        // The size was loaded with the rest, so only the buffer is needed
+        initBuffer();
+    }
+
     @Override
     public float getX() {
         if( isHorizontallyCentered ) {
@@ -119,6 +148,27 @@ public class TextDisplay extends GameObject {
     }
     
     // <editor-fold defaultstate="collapsed" desc="Private & Protected Methods">
+
+    /**
+     * Writes a string as its length and chars, without encoding it.
+     */
+    protected static void saveText(String text, ByteBuffer buffer) {
+        buffer.putShort((short) text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer.putChar(text.charAt(i));
+        }
+    }
+
+    /**
+     * Reads a string written by saveText().
+     */
+    protected static String loadText(ByteBuffer buffer) {
+        char[] text = new char[buffer.getShort()];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = buffer.getChar();
+        }
+        return new String(text);
+    }
     
     /**
      * Determine the dimensions of the text object based on the font used.
@@ -128,6 +178,11 @@ public class TextDisplay extends GameObject {
     protected Dimension sizeText(String str) { 
         
         Graphics2D _g2d = getGraphics();
+        if (_g2d == null) {
+            // The buffer was dropped to be redrawn at a new size
+            initBuffer();
+            _g2d = getGraphics();
+        }
         
         // get metrics from the graphics
         FontMetrics metrics = _g2d.getFontMetrics(font);
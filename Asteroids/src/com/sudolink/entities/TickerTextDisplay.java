@@ -18,9 +18,10 @@
 */
 package com.sudolink.entities;
 
-import com.sudolink.game.GameCanvas;
+import com.sudolink.game.GameSession;
 import com.sudolink.game.GameTimer;
 import java.awt.Font;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,8 +31,8 @@ import java.util.List;
  */
 public class TickerTextDisplay extends TextDisplay {
 
-    public TickerTextDisplay(Font f) {
-        super(f);
+    public TickerTextDisplay(GameSession session, Font f) {
+        super(session, f);
         messages = new ArrayList<>();
         keypressTimer = new GameTimer(2) {
             @Override
@@ -76,9 +77,32 @@ public class TickerTextDisplay extends TextDisplay {
         }
     }
 
+    /**
+     * Saves how far through its messages the ticker has got. The messages
+     * themselves aren't saved; load into a ticker given the same ones.
+     * @param buffer The buffer to write to.
+     */
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        saveText(currentMessage, buffer);
+        buffer.putShort((short) nextMessageIndex);
+        buffer.putShort((short) nextCharIndex);
+        keypressTimer.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        currentMessage = loadText(buffer);
+        nextMessageIndex = buffer.getShort();
+        nextCharIndex = buffer.getShort();
+        keypressTimer.load(buffer);
+    }
+
     @Override
     public float getX() {
-        return GameCanvas.SCREEN_WIDTH * 0.5f - (sizeText(currentMessage).width / 2);
+        return getSession().getWidth() * 0.5f - (sizeText(currentMessage).width / 2);
  
     }
     
@@ -18,8 +18,10 @@
 */
 package com.sudolink.entities;
 
+import com.sudolink.game.GameSession;
 import com.sudolink.game.GameTimer;
 import java.awt.Font;
+import java.nio.ByteBuffer;
 
 /**
  * Provides a TextDisplay with an embedded timer, allowing timed behavior.
@@ -29,8 +31,8 @@ public class TimedTextDisplay extends TextDisplay {
     
     private GameTimer timer;
     
-    public TimedTextDisplay(Font f, String text) {
-        super(f, text);
+    public TimedTextDisplay(GameSession session, Font f, String text) {
+        super(session, f, text);
     }
     
     @Override
@@ -42,6 +44,28 @@ public class TimedTextDisplay extends TextDisplay {
         
     }
 
+    /**
+     * Saves the timer along with the text. Load into a display whose timer
+     * has already been set.
+     * @param buffer The buffer to write to.
+     */
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.put((byte) (timer != null ? 1 : 0));
+        if (timer != null) {
+            timer.save(buffer);
+        }
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        if (buffer.get() != 0) {
+            timer.load(buffer);
+        }
+    }
+
     /**
      * @param timer the timer to set
      */
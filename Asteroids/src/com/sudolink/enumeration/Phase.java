@@ -0,0 +1,39 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.enumeration;
+
+/**
+ * The parts of a tick and a frame that are timed by the PerformanceMonitor.
+ * Tick covers everything from Input to Wave, and Objects includes
+ * Collisions. Render includes Present when the display presents its own
+ * frames.
+ * @author Matthew MacGregor
+ */
+public enum Phase {
+
+    Tick,
+    Input,
+    Objects,
+    Collisions,
+    Wave,
+    Snapshot,
+    Render,
+    Present
+
+}
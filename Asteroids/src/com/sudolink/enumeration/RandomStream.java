@@ -0,0 +1,34 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.enumeration;
+
+/**
+ * The parts of the game that draw random numbers, each from its own stream
+ * of a session's RandomManager. Streams are split from the seed in this
+ * order, so new streams must be added at the end to keep existing games
+ * reproducible.
+ * @author Matthew MacGregor
+ */
+public enum RandomStream {
+
+    Wave,
+    Asteroids,
+    Particles
+
+}
@@ -0,0 +1,45 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The pass over every object that updates it and drops it if it was killed.
+ * @author Matthew MacGregor
+ */
+@Name("com.sudolink.Cleanup")
+@Label("Object Update and Cleanup")
+@Category({"NotAsteroids", "Simulation"})
+@Description("Per-object updates, and removal of killed objects")
+@StackTrace(false)
+public class CleanupEvent extends Event {
+
+    @Label("Removed")
+    public int removed;
+
+    @Label("Remaining")
+    public int remaining;
+
+}
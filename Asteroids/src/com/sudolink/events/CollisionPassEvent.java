@@ -0,0 +1,51 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One collision pass: rebuilding the broadphase and testing each ship and
+ * bullet against the objects that share its cells.
+ * @author Matthew MacGregor
+ */
+@Name("com.sudolink.CollisionPass")
+@Label("Collision Pass")
+@Category({"NotAsteroids", "Simulation"})
+@Description("Broadphase rebuild and collision tests for one tick")
+@StackTrace(false)
+public class CollisionPassEvent extends Event {
+
+    @Label("Broadphase Objects")
+    public int objects;
+
+    @Label("Colliders")
+    @Description("Ships and bullets tested against the broadphase")
+    public int colliders;
+
+    @Label("Candidate Pairs")
+    @Description("Pairs handed to collide() by the broadphase")
+    public int pairs;
+
+}
@@ -0,0 +1,48 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One simulation tick, from the start of GameMain.updateGame() to its end.
+ * @author Matthew MacGregor
+ */
+@Name("com.sudolink.Tick")
+@Label("Tick")
+@Category({"NotAsteroids", "Game Loop"})
+@Description("One fixed-rate simulation tick")
+@StackTrace(false)
+public class TickEvent extends Event {
+
+    @Label("Tick Number")
+    public long tick;
+
+    @Label("Lag")
+    @Description("How far behind the tick's due time the simulation was when it started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lag;
+
+}
@@ -0,0 +1,43 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A new wave of asteroids starting.
+ * @author Matthew MacGregor
+ */
+@Name("com.sudolink.WaveLaunch")
+@Label("Wave Launch")
+@Category({"NotAsteroids", "Waves"})
+@StackTrace(false)
+public class WaveLaunchEvent extends Event {
+
+    @Label("Wave Number")
+    public int wave;
+
+    @Label("Asteroids")
+    public int asteroids;
+
+}
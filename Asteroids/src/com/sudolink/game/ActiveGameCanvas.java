@@ -0,0 +1,130 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.enumeration.Phase;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.PerformanceMonitor;
+import java.awt.Canvas;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Actively rendered display. Frames are drawn into the back buffer of a
+ * BufferStrategy and shown (flipped, where the platform supports it) by the
+ * thread that renders, so presentation happens on the game's schedule
+ * instead of whenever Swing gets round to a repaint.
+ *
+ * @author Matthew MacGregor
+ */
+public class ActiveGameCanvas extends Canvas implements GameDisplay {
+
+    public ActiveGameCanvas(KeyListener listener) {
+        scene = new SceneRenderer(GameCanvas.SCREEN_WIDTH, GameCanvas.SCREEN_HEIGHT);
+        refreshBuffer(GameCanvas.SCREEN_WIDTH, GameCanvas.SCREEN_HEIGHT);
+        // We draw everything ourselves; ignore paint requests from the OS.
+        setIgnoreRepaint(true);
+        setFocusable(true);
+        addKeyListener(listener);
+    }
+
+    @Override
+    public Component getComponent() {
+        return this;
+    }
+
+    /**
+     * The scene's backbuffer is resized by the renderer before its next
+     * frame, rather than from under it.
+     */
+    @Override
+    public final void refreshBuffer(int width, int height) {
+        setSize(width, height);
+        setPreferredSize(new Dimension(width, height));
+        bufferWidth = width;
+        bufferHeight = height;
+    }
+
+    @Override
+    public void setRasterEnabled(boolean enabled) {
+        scene.setRasterEnabled(enabled);
+    }
+
+    @Override
+    public void setDebugOverlay(DebugOverlay overlay) {
+        scene.setDebugOverlay(overlay);
+    }
+
+    /**
+     * Draws and shows a frame. Does nothing until the canvas is on screen.
+     * Video memory back buffers can be lost at any time (the display mode
+     * changes, the screen locks), so the frame is redrawn until it makes it
+     * to the screen intact.
+     */
+    @Override
+    public void render(FrameSnapshot frame, float alpha) {
+        if (!isDisplayable()) {
+            return;
+        }
+        int width = bufferWidth;
+        int height = bufferHeight;
+        if (scene.getBackbuffer().getWidth() != width
+                || scene.getBackbuffer().getHeight() != height) {
+            scene.resize(width, height);
+        }
+
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            createBufferStrategy(BUFFERS);
+            strategy = getBufferStrategy();
+        }
+
+        long presented;
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    scene.draw((Graphics2D) g, getWidth(), getHeight(), frame, alpha);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            presented = System.nanoTime();
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        // Flush the window system's queue, otherwise frames may pile up
+        // (notably on Linux).
+        Toolkit.getDefaultToolkit().sync();
+        PerformanceMonitor.getInstance().record(Phase.Present, presented);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFERS = 2;
+    private final SceneRenderer scene;
+    private volatile int bufferWidth;
+    private volatile int bufferHeight;
+    // </editor-fold>
+}
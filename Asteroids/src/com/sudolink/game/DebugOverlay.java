@@ -0,0 +1,266 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.enumeration.EntityState;
+import com.sudolink.enumeration.Phase;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.GameObjectsManager;
+import com.sudolink.manager.PerformanceMonitor;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+
+/**
+ * Draws performance figures over the game, and optionally the collision
+ * bounds of every object and the broadphase cells they occupy. The overlay
+ * is toggled at runtime (F3 cycles through the modes) and only reads the
+ * FrameSnapshot and the PerformanceMonitor, so it is safe on the render
+ * thread.
+ *
+ * Text is built up in a reused char array and drawn with drawChars(), and
+ * all colors are opaque (Java2D allocates mask buffers for translucent
+ * fills and lines), so drawing the overlay doesn't allocate.
+ *
+ * @author Matthew MacGregor
+ */
+public class DebugOverlay {
+
+    public enum Mode {
+        Off,
+        Stats,
+        Bounds,
+        Broadphase
+    }
+
+    public DebugOverlay(Mode mode) {
+        this.mode = mode;
+        identity = new AffineTransform();
+        font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        line = new char[128];
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Moves on to the next mode, wrapping round to Off.
+     */
+    public void cycleMode() {
+        mode = MODES[(mode.ordinal() + 1) % MODES.length];
+    }
+
+    /**
+     * @return True if the overlay is showing.
+     */
+    public boolean isEnabled() {
+        return mode != Mode.Off;
+    }
+
+    /**
+     * Draws the overlay on top of a finished frame. Only call from the thread
+     * that draws frames.
+     * @param g The Graphics context; its transform is reset.
+     * @param width Width of the surface.
+     * @param height Height of the surface.
+     * @param frame The snapshot the frame was drawn from.
+     * @param alpha The interpolation factor the frame was drawn with.
+     */
+    public void draw(Graphics2D g, int width, int height, FrameSnapshot frame, float alpha) {
+        Mode m = mode;
+        if (m == Mode.Off) {
+            return;
+        }
+        countFrame(System.nanoTime());
+
+        g.setTransform(identity);
+        if (m == Mode.Broadphase) {
+            drawCells(g, width, height, frame, alpha);
+        }
+        if (m == Mode.Bounds || m == Mode.Broadphase) {
+            drawBounds(g, frame, alpha);
+        }
+        drawStats(g, frame);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void countFrame(long now) {
+        frameNanos = now - lastFrame;
+        lastFrame = now;
+        framesInWindow++;
+        if (now - windowStart >= 1000000000L) {
+            fps = framesInWindow * 1000000000L / (now - windowStart);
+            framesInWindow = 0;
+            windowStart = now;
+        }
+    }
+
+    private void drawCells(Graphics2D g, int width, int height, FrameSnapshot frame, float alpha) {
+        int cell = GameObjectsManager.BROADPHASE_CELL_SIZE;
+        g.setPaint(GRID_COLOR);
+        for (int x = 0; x < width; x += cell) {
+            g.drawLine(x, 0, x, height);
+        }
+        for (int y = 0; y < height; y += cell) {
+            g.drawLine(0, y, width, y);
+        }
+
+        g.setPaint(CELL_COLOR);
+        for (int i = 0; i < frame.size(); i++) {
+            if ((frame.getFlags(i) & FrameSnapshot.FLAG_COLLIDABLE) == 0) {
+                continue;
+            }
+            float minX = frame.getX(i, alpha);
+            float minY = frame.getY(i, alpha);
+            int left = (int) Math.floor(minX / cell);
+            int top = (int) Math.floor(minY / cell);
+            int right = (int) Math.floor((minX + frame.getBoundsWidth(i)) / cell);
+            int bottom = (int) Math.floor((minY + frame.getBoundsHeight(i)) / cell);
+            g.drawRect(left * cell, top * cell, (right - left + 1) * cell, (bottom - top + 1) * cell);
+        }
+    }
+
+    private void drawBounds(Graphics2D g, FrameSnapshot frame, float alpha) {
+        for (int i = 0; i < frame.size(); i++) {
+            boolean collidable = (frame.getFlags(i) & FrameSnapshot.FLAG_COLLIDABLE) != 0;
+            g.setPaint(collidable ? BOUNDS_COLOR : Color.DARK_GRAY);
+            g.drawRect((int) frame.getX(i, alpha), (int) frame.getY(i, alpha),
+                    (int) frame.getBoundsWidth(i), (int) frame.getBoundsHeight(i));
+        }
+    }
+
+    private void drawStats(Graphics2D g, FrameSnapshot frame) {
+        PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+        Runtime runtime = Runtime.getRuntime();
+
+        g.setFont(font);
+        g.setPaint(PANEL_COLOR);
+        g.fillRect(MARGIN, MARGIN, PANEL_WIDTH, LINE_HEIGHT * (5 + FrameSnapshot.KIND_COUNT) + MARGIN);
+        g.setPaint(Color.WHITE);
+        row = 0;
+
+        begin().append("fps ").append(fps).append("  frame ").appendMillis(frameNanos);
+        end(g);
+        begin().append("tick ").appendMillis(monitor.getLatest(Phase.Tick))
+                .append("  render ").appendMillis(monitor.getLatest(Phase.Render));
+        end(g);
+        begin().append("collision pairs ").append(frame.getCollisionPairs());
+        end(g);
+        begin().append("heap ").append((runtime.totalMemory() - runtime.freeMemory()) >> 20)
+                .append('/').append(runtime.maxMemory() >> 20).append(" MB");
+        end(g);
+        begin().append("alloc/tick ").append(monitor.getLatestAllocatedBytes()).append(" B");
+        end(g);
+
+        for (int kind = 0; kind < FrameSnapshot.KIND_COUNT; kind++) {
+            begin().append(KIND_LABELS[kind]);
+            for (int s = 0; s < STATES.length; s++) {
+                int count = frame.getCount(kind, s);
+                if (count > 0) {
+                    append(' ').append(STATES[s].name()).append(' ').append(count);
+                }
+            }
+            end(g);
+        }
+    }
+
+    private DebugOverlay begin() {
+        length = 0;
+        return this;
+    }
+
+    private void end(Graphics2D g) {
+        row++;
+        g.drawChars(line, 0, length, MARGIN * 2, MARGIN + row * LINE_HEIGHT);
+    }
+
+    private DebugOverlay append(String s) {
+        int n = Math.min(s.length(), line.length - length);
+        s.getChars(0, n, line, length);
+        length += n;
+        return this;
+    }
+
+    private DebugOverlay append(char c) {
+        if (length < line.length) {
+            line[length++] = c;
+        }
+        return this;
+    }
+
+    private DebugOverlay append(long value) {
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        // Write the digits backwards into the end of the line, then move them
+        int end = line.length;
+        int start = end;
+        do {
+            line[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0 && start > length);
+        int n = end - start;
+        System.arraycopy(line, start, line, length, n);
+        length += n;
+        return this;
+    }
+
+    private DebugOverlay appendMillis(long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return append(" ms");
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final Mode[] MODES = Mode.values();
+    private static final EntityState[] STATES = EntityState.values();
+    private static final String[] KIND_LABELS = {
+        "ship     ", "asteroid ", "bullet   ", "particle ", "other    "
+    };
+    private static final Color PANEL_COLOR = new Color(16, 16, 16);
+    private static final Color GRID_COLOR = new Color(28, 28, 28);
+    private static final Color CELL_COLOR = new Color(0, 96, 160);
+    private static final Color BOUNDS_COLOR = new Color(0, 192, 0);
+    private static final int MARGIN = 6;
+    private static final int LINE_HEIGHT = 14;
+    private static final int PANEL_WIDTH = 420;
+    private volatile Mode mode;
+    private final AffineTransform identity;
+    private final Font font;
+    // Only touched by the render thread
+    private final char[] line;
+    private int length;
+    private int row;
+    private long lastFrame;
+    private long frameNanos;
+    private long windowStart;
+    private int framesInWindow;
+    private long fps;
+    // </editor-fold>
+}
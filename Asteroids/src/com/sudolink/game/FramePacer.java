@@ -0,0 +1,160 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a loop to a fixed period by parking the thread until each frame's
+ * deadline. Deadlines are kept on a fixed schedule from start(), rather than
+ * measured from whenever the last frame happened to finish, so small wake-up
+ * delays don't add up into drift.
+ *
+ * A loop that falls behind runs its late frames back to back to catch up,
+ * up to MAX_CATCH_UP_FRAMES. Past that it skips the missed frames and picks
+ * the schedule up again from the next deadline. Catching up suits a loop
+ * whose frames each have to happen, but a loop that only draws gains
+ * nothing from it: it would draw the same picture twice, with the second
+ * one straight after a late frame. A pacer made without catch-up never
+ * runs frames back to back. A late frame instead restarts the schedule,
+ * so the frame after it gets a whole period.
+ *
+ * The pacer also keeps a running measure of frame jitter: how far the time
+ * between frames strays from the period, smoothed the same way RTP measures
+ * packet jitter.
+ *
+ * @author Matthew MacGregor
+ */
+public class FramePacer {
+
+    /** How many frames behind a loop may get before it skips instead. */
+    public static final int MAX_CATCH_UP_FRAMES = 2;
+
+    /**
+     * @param periodNanos Time between frames, or 0 not to wait at all.
+     */
+    public FramePacer(long periodNanos) {
+        this(periodNanos, true);
+    }
+
+    /**
+     * @param periodNanos Time between frames, or 0 not to wait at all.
+     * @param catchUp False to restart the schedule after a late frame
+     * instead of catching up.
+     */
+    public FramePacer(long periodNanos, boolean catchUp) {
+        this.periodNanos = periodNanos;
+        this.catchUp = catchUp;
+    }
+
+    /**
+     * Starts the schedule from now. Call once from the thread being paced,
+     * before its first frame.
+     */
+    public void start() {
+        deadline = System.nanoTime();
+        lastFrame = deadline;
+    }
+
+    /**
+     * Waits for the next frame's deadline. Returns straight away if it has
+     * already passed.
+     * @return The System.nanoTime() the wait ended at.
+     */
+    public long awaitNextFrame() {
+        deadline += periodNanos;
+        long now = System.nanoTime();
+        long late = now - deadline;
+        if (periodNanos > 0 && !catchUp && late > 0) {
+            // Go now, and count the next frame from here
+            skippedFrames += late / periodNanos;
+            deadline = now;
+        } else if (periodNanos > 0 && late > periodNanos * MAX_CATCH_UP_FRAMES) {
+            long missed = late / periodNanos;
+            deadline += missed * periodNanos;
+            skippedFrames += missed;
+        }
+
+        long remaining;
+        while ((remaining = deadline - now) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            // Like the old sleep loop, an interrupt doesn't end the wait
+            Thread.interrupted();
+            now = System.nanoTime();
+        }
+
+        record(now);
+        return now;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * @return The smoothed difference between the time from one frame to the
+     * next and the period.
+     */
+    public long getJitterNanos() {
+        return jitterNanos;
+    }
+
+    /**
+     * @return The furthest past its deadline a frame has started.
+     */
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /**
+     * @return How many frames have been skipped because the loop was too far
+     * behind to catch up, or, without catch-up, how many whole periods late
+     * frames have been.
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void record(long now) {
+        long deviation = Math.abs(now - lastFrame - periodNanos);
+        jitterNanos += (deviation - jitterNanos) / JITTER_SMOOTHING;
+        maxLatenessNanos = Math.max(maxLatenessNanos, now - deadline);
+        lastFrame = now;
+        frameCount++;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int JITTER_SMOOTHING = 16;
+    private final long periodNanos;
+    private final boolean catchUp;
+    private long deadline;
+    private long lastFrame;
+    // Written by the paced thread only, but may be read from any
+    private volatile long jitterNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long skippedFrames;
+    private volatile long frameCount;
+    // </editor-fold>
+}
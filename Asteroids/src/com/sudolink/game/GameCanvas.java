@@ -18,96 +18,121 @@
 */
 package com.sudolink.game;
 
-import com.sudolink.entities.GameObject;
-import com.sudolink.manager.GameObjectsManager;
-import java.awt.Color;
+import com.sudolink.enumeration.Phase;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.PerformanceMonitor;
+import com.sudolink.manager.TripleBuffer;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.event.KeyListener;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
-import java.util.List;
 import javax.swing.JPanel;
 
 /**
+ * Passively rendered display. Each frame is drawn into an offscreen image by
+ * the thread that renders, and copied to the screen when Swing repaints the
+ * panel on the event dispatch thread.
+ *
+ * The images are triple buffered: the renderer draws into a free image and
+ * publishes it once it is complete, and paintComponent() always paints the
+ * latest complete one. Neither thread waits for the other, and a frame is
+ * never painted while it is still being drawn.
  *
  * @author Matthew MacGregor
  */
-public class GameCanvas extends JPanel {
-
-    public static int SCREEN_WIDTH = 900;
-    public static int SCREEN_HEIGHT = 600;
+public class GameCanvas extends JPanel implements GameDisplay {
 
-    private BufferedImage backbuffer = null;
-    private Graphics2D g2d = null;
-    private AffineTransform identity = null;
+    /** Size of the window when the game starts. */
+    public static final int SCREEN_WIDTH = 900;
+    public static final int SCREEN_HEIGHT = 600;
 
     public GameCanvas(KeyListener listener) {
+        frames = new TripleBuffer<>(
+                new SceneRenderer(SCREEN_WIDTH, SCREEN_HEIGHT),
+                new SceneRenderer(SCREEN_WIDTH, SCREEN_HEIGHT),
+                new SceneRenderer(SCREEN_WIDTH, SCREEN_HEIGHT));
         refreshBuffer(GameCanvas.SCREEN_WIDTH, SCREEN_HEIGHT);
-        identity = new AffineTransform();
         setFocusable(true);
         addKeyListener(listener);
     }
 
+    @Override
+    public Component getComponent() {
+        return this;
+    }
+
     /**
      * Allows the owner of this component to reset the size (in response to a 
-     * screen resize event, for example).
+     * screen resize event, for example). The offscreen images are resized by
+     * the renderer as it next draws into each of them.
      * @param width
      * @param height
      */
+    @Override
     public final void refreshBuffer(int width, int height) {
-        GameCanvas.SCREEN_WIDTH = width;
-        GameCanvas.SCREEN_HEIGHT = height;
         setSize(width, height);
-        setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT));
-        backbuffer = new BufferedImage(SCREEN_WIDTH,
-                SCREEN_HEIGHT,
-                BufferedImage.TYPE_INT_RGB);
-
-        g2d = backbuffer.createGraphics();
+        setPreferredSize(new Dimension(width, height));
+        bufferWidth = width;
+        bufferHeight = height;
     }
 
     /**
-     * This fires the main draw loop.
+     * Switches between drawing with Java2D and drawing line art straight into
+     * the offscreen images. Call before rendering starts.
+     * @param enabled True to use the RasterRenderer.
      */
-    public void updateGraphics() {
-        
-        g2d.setTransform(getIdentity());
-        g2d.setPaint(Color.BLACK);
-        g2d.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
-        List<GameObject> objects = GameObjectsManager.getInstance().get();
-        
-        // This shouldn't need synchronization (?)
-        for (GameObject o : objects) {
-            switch (o.getState()) {
-                // Only draw active objects
-                case Active:
-                case Impervious:
-                case Ghost:
-                    g2d.setTransform(getIdentity());
-                    o.draw(g2d);
-
-                // Ignore these objects
-                case Passive:
-                case Killed:
-                default:
-                    ;
+    @Override
+    public void setRasterEnabled(boolean enabled) {
+        for (int i = 0; i < 3; i++) {
+            frames.get(i).setRasterEnabled(enabled);
+        }
+    }
 
-            }
+    @Override
+    public void setDebugOverlay(DebugOverlay overlay) {
+        for (int i = 0; i < 3; i++) {
+            frames.get(i).setDebugOverlay(overlay);
         }
     }
 
+    /**
+     * Draws the frame into a free image, publishes it and asks Swing to put
+     * it on screen.
+     */
     @Override
-    public void paintComponent(Graphics g) {
-        g.drawImage(backbuffer, 0, 0, this);
+    public void render(FrameSnapshot frame, float alpha) {
+        updateGraphics(frame, alpha);
+        repaint();
     }
 
     /**
-     * @return the identity
+     * This fires the main draw loop.
+     * @param frame The snapshot to draw.
+     * @param alpha The interpolation factor.
      */
-    public AffineTransform getIdentity() {
-        return identity;
+    public void updateGraphics(FrameSnapshot frame, float alpha) {
+        SceneRenderer scene = frames.getBack();
+        int width = bufferWidth;
+        int height = bufferHeight;
+        if (scene.getBackbuffer().getWidth() != width
+                || scene.getBackbuffer().getHeight() != height) {
+            scene.resize(width, height);
+        }
+        scene.drawToBackbuffer(frame, alpha);
+        frames.publish();
     }
 
+    @Override
+    public void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        g.drawImage(frames.getFront().getBackbuffer(), 0, 0, this);
+        PerformanceMonitor.getInstance().record(Phase.Present, start);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final TripleBuffer<SceneRenderer> frames;
+    private volatile int bufferWidth;
+    private volatile int bufferHeight;
+    // </editor-fold>
+
 }
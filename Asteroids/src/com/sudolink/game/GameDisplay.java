@@ -0,0 +1,64 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.manager.FrameSnapshot;
+import java.awt.Component;
+
+/**
+ * The surface the game is shown on. GameCanvas is a Swing panel repainted on
+ * the event dispatch thread; ActiveGameCanvas presents frames itself through
+ * a BufferStrategy.
+ *
+ * @author Matthew MacGregor
+ */
+public interface GameDisplay {
+
+    /**
+     * @return The AWT component to add to the window.
+     */
+    Component getComponent();
+
+    /**
+     * Allows the owner of this display to reset the size (in response to a
+     * screen resize event, for example).
+     * @param width
+     * @param height
+     */
+    void refreshBuffer(int width, int height);
+
+    /**
+     * @param enabled True to draw with the RasterRenderer.
+     */
+    void setRasterEnabled(boolean enabled);
+
+    /**
+     * @param overlay Drawn over every frame, or null for none.
+     */
+    void setDebugOverlay(DebugOverlay overlay);
+
+    /**
+     * Draws a snapshot of the game and gets it onto the screen. Called once
+     * per frame, from the render thread if there is one.
+     * @param frame The snapshot to draw.
+     * @param alpha How far between the snapshot's previous and current state
+     * to draw, from 0 to 1.
+     */
+    void render(FrameSnapshot frame, float alpha);
+}
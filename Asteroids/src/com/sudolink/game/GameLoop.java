@@ -18,47 +18,96 @@
 */
 package com.sudolink.game;
 
+import com.sudolink.events.TickEvent;
+
 /**
+ * Runs the game at a fixed simulation rate, independent of how often frames
+ * are drawn. Elapsed time is banked in an accumulator and spent in whole
+ * ticks of TICK_NANOS. After the last tick owed, a snapshot is published
+ * stamped with the time that tick was due, which the renderer uses to
+ * interpolate. All speeds in the game are per tick, so the tick rate is
+ * fixed at the 20 Hz the game was tuned for.
+ *
+ * When there is a separate RenderLoop this thread only simulates, waking
+ * once per tick; otherwise it draws a frame after each pass as well, and
+ * wakes once per frame. Either way the waiting is done by a FramePacer.
  *
  * @author matsu
  */
 public class GameLoop implements Runnable {
 
+    /** Simulation ticks per second. */
+    public static final int TICKS_PER_SECOND = 20;
+    public static final long TICK_NANOS = 1000000000L / TICKS_PER_SECOND;
+    /**
+     * The most time a single frame may add to the accumulator. After a long
+     * stall (a debugger, the window being dragged) the game skips ahead
+     * rather than running dozens of ticks back to back to catch up.
+     */
+    private static final long MAX_FRAME_NANOS = TICK_NANOS * 5;
+
     private Thread gameloop;
     private final GameMain main;
- 
+    private final FramePacer pacer;
+    private final boolean drawsFrames;
+    private long tickCount;
 
-    public GameLoop(GameMain c) {
+    /**
+     * @param c The game.
+     * @param framesPerSecond The most frames to draw per second, or 0 to draw
+     * as fast as possible (e.g. when the display waits for vertical sync).
+     * @param drawsFrames False if another thread does the drawing.
+     */
+    public GameLoop(GameMain c, int framesPerSecond, boolean drawsFrames) {
         main = c;
+        long frameNanos = framesPerSecond > 0 ? 1000000000L / framesPerSecond : 0;
+        // The accumulator keeps the ticks on time. A loop that draws gains
+        // nothing by catching up, so a late frame restarts its schedule.
+        pacer = drawsFrames ? new FramePacer(frameNanos, false) : new FramePacer(TICK_NANOS);
+        this.drawsFrames = drawsFrames;
+    }
+
+    /**
+     * @return The pacer, for its timing statistics.
+     */
+    public FramePacer getPacer() {
+        return pacer;
     }
 
     @Override
     public void run() {
 
         Thread t = Thread.currentThread();
+        pacer.start();
+        long previous = System.nanoTime();
+        long accumulator = 0;
         while (t == gameloop) {
-            main.updateGame();
-            main.drawGame();
-            timeWarp();
-            
-        }
+            long frameStart = System.nanoTime();
+            accumulator += Math.min(frameStart - previous, MAX_FRAME_NANOS);
+            previous = frameStart;
 
-    }
+            boolean ticked = false;
+            while (accumulator >= TICK_NANOS) {
+                TickEvent event = new TickEvent();
+                event.begin();
+                main.updateGame();
+                event.tick = ++tickCount;
+                event.lag = accumulator - TICK_NANOS;
+                event.commit();
+                accumulator -= TICK_NANOS;
+                ticked = true;
+            }
+            if (ticked) {
+                main.publishFrame(frameStart - accumulator);
+            }
 
-    private void timeWarp() {
-        long sleepTime = 50000000; //nanoseconds?
-        long now = System.nanoTime();
-        long diff;
-        while ((diff = System.nanoTime() - now) < sleepTime) {
-            if (diff < sleepTime * 0.8) {
-                try {
-                    Thread.sleep(1);
-                } catch (InterruptedException exc) {
-                }
-            } else {
-                Thread.yield();
+            if (drawsFrames) {
+                main.drawGame();
             }
+            pacer.awaitNextFrame();
+            
         }
+
     }
 
     public void stop() {
@@ -68,7 +117,6 @@ public class GameLoop implements Runnable {
     public void start() {
         gameloop = new Thread(this);
         gameloop.start();
-        run();
     }
 
 }
@@ -18,24 +18,23 @@
 */
 package com.sudolink.game;
 
-import com.sudolink.entities.GameObject;
-import com.sudolink.entities.PointsDisplay;
-import com.sudolink.entities.Ship;
-import com.sudolink.entities.TextDisplay;
-import com.sudolink.entities.TickerTextDisplay;
+import com.sudolink.enumeration.Phase;
 import com.sudolink.manager.AudioManager;
-import com.sudolink.manager.FontManager;
-import com.sudolink.manager.GameObjectsManager;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.PerformanceMonitor;
+import com.sudolink.manager.RotationCache;
 import java.awt.BorderLayout;
-import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.sound.sampled.Clip;
 import javax.swing.JFrame;
 
@@ -50,82 +49,109 @@ public class GameMain implements KeyListener {
      */
     public static void main(String[] args) {
         
-        GameMain.getInstance().start();
+        new GameMain().start();
         
     }
 
     public GameMain() {
 
-        GameObjectsManager gameObjects = GameObjectsManager.getInstance();
-        gameloop = new GameLoop(this);
-        gameTimers = new HashMap<>();
+        options = GameOptions.fromSystemProperties();
+        if (options.isHeadless()) {
+            // Make sure nothing below tries to open a window
+            System.setProperty("java.awt.headless", "true");
+            AudioManager.getInstance().setEnabled(false);
+        }
+        RotationCache.getInstance().configure(
+                options.getRotationSteps(), options.getRotationCacheBytes());
+        PerformanceMonitor.getInstance().register();
+
+        replay = loadReplay(options.getReplay());
+        if (replay != null) {
+            session = new GameSession(replay.getWidth(), replay.getHeight(), replay.getSeed());
+        } else {
+            session = new GameSession(GameCanvas.SCREEN_WIDTH, GameCanvas.SCREEN_HEIGHT, options.getSeed());
+        }
 
-        initializeUI();
+        if (options.isHeadless()) {
+            gameloop = null;
+            display = new NullDisplay();
+            overlay = new DebugOverlay(DebugOverlay.Mode.Off);
+        } else {
+            gameloop = new GameLoop(this, options.getFramesPerSecond(), !options.isRenderThread());
+            if (options.isRenderThread()) {
+                renderloop = new RenderLoop(this, options.getFramesPerSecond());
+            }
+            initializeUI();
+        }
         initializeAudio();
 
-        ship = new Ship();
-        ship.setXY(GameCanvas.SCREEN_WIDTH / 2, GameCanvas.SCREEN_HEIGHT / 2);
-        gameObjects.add(ship);
-
-        //Initialize Fonts before initializing TextDisplay objects
-        FontManager fm = FontManager.getInstance();
-        fm.prepareFont("silkscreen", "/media/slkscr.ttf");
-
-        TextDisplay title = new TextDisplay(fm.getFont("silkscreen", 24), "Not Asteroids");
-        title.setXY(GameCanvas.SCREEN_WIDTH * 0.1f, 0);
-        title.setForeground(Color.red);
- 
-        points = new PointsDisplay(fm.getFont("silkscreen", 24), "");
-        points.setXY(GameCanvas.SCREEN_WIDTH * 0.7f, 0);
-
-        pause = new TextDisplay(fm.getFont("silkscreen", 48), "Press ESC Key");
-        pause.setForeground(Color.red);
-        pause.setXY(GameCanvas.SCREEN_WIDTH * 0.5f, GameCanvas.SCREEN_HEIGHT * 0.5f);
-        pause.setIsHorizontallyCentered(true);
-        pause.setEnabled(false);
-        
-        ticker = new TickerTextDisplay(fm.getFont("silkscreen", 18));
-        ticker.setForeground(Color.GRAY);
-        ticker.setXY(GameCanvas.SCREEN_WIDTH * 0.5f, GameCanvas.SCREEN_HEIGHT * 0.6f);
-        ticker.setEnabled(false);
-        ticker.addMessage("Not Asteroids: A Retro Classic Redux");
-        ticker.addMessage("Programmed by Matthew MacGregor");
-        ticker.addMessage("Version " + GameVersion.getVersion());
-        ticker.addMessage("For Your Vintage Gaming Pleasure");
-        ticker.addMessage("Built From Scratch in Plain Ol' Java");
-        ticker.addMessage("How Do You Like Them Asteroids?");
-        
-        gameObjects.add(points);
-        gameObjects.add(title);
-        gameObjects.add(pause);
-        gameObjects.add(ticker);
+        session.newGame();
+        session.setReplay(replay);
+        if (options.getRecord() != null) {
+            startRecording(new File(options.getRecord()));
+        }
 
-        initializeTimers();
-        gameWave = new GameWave();
+    }
 
+    /**
+     * @return The replay named in the options, or null if there isn't one.
+     */
+    private static Replay loadReplay(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        try {
+            return Replay.load(new File(filename));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Can't play " + filename, ex);
+        }
+    }
+
+    /**
+     * Records the session to a file, which is finished off when the game
+     * exits.
+     */
+    private void startRecording(File file) {
+        try {
+            recorder = new ReplayRecorder(new FileOutputStream(file), session,
+                    ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL,
+                    ReplayRecorder.DEFAULT_SNAPSHOT_INTERVAL);
+        } catch (IOException ex) {
+            Logger.getLogger(GameMain.class.getName()).log(Level.SEVERE, "Not recording", ex);
+            return;
+        }
+        session.setRecorder(recorder);
+        Runtime.getRuntime().addShutdownHook(new Thread("Recorder") {
+            @Override
+            public void run() {
+                recorder.close();
+            }
+        });
     }
 
     private void initializeUI() {
         frame = new JFrame();
-        canvas = new GameCanvas(this);
+        if (options.isActiveDisplay()) {
+            display = new ActiveGameCanvas(this);
+        } else {
+            display = new GameCanvas(this);
+        }
+        display.setRasterEnabled(options.isRasterRenderer());
+        overlay = new DebugOverlay(options.isDebug() ? DebugOverlay.Mode.Stats : DebugOverlay.Mode.Off);
+        display.setDebugOverlay(overlay);
         frame.setTitle("Asteroids");
         frame.setSize(GameCanvas.SCREEN_WIDTH, GameCanvas.SCREEN_HEIGHT);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
         frame.setLayout(new BorderLayout());
-        frame.add(canvas, BorderLayout.CENTER);
+        frame.add(display.getComponent(), BorderLayout.CENTER);
         frame.addComponentListener(new ComponentListener() {
 
             @Override
             public void componentResized(ComponentEvent e) {
                 Rectangle r = frame.getBounds();
-                canvas.refreshBuffer(r.width, r.height);
-                if (points != null) {
-                    points.setXY(GameCanvas.SCREEN_WIDTH * 0.7f, 0);
-                }
-                if( pause != null ) {
-                    pause.setX(GameCanvas.SCREEN_WIDTH * 0.5f);
-                }
+                display.refreshBuffer(r.width, r.height);
+                session.setSize(r.width, r.height);
             }
 
             @Override
@@ -145,24 +171,6 @@ public class GameMain implements KeyListener {
 
     }
 
-    private void initializeTimers() {
-        //Initialize Timers
-        GameTimer respawnTimer = new GameTimer(50) {
-            @Override
-            public void action() {
-                ship.setXY(GameCanvas.SCREEN_WIDTH * 0.5f, GameCanvas.SCREEN_HEIGHT * 0.5f);
-                ship.setRotation(0);
-                ship.setDirection(0);
-                ship.setSpeed(0);
-                ship.toggleImpervious();
-                this.stop();
-                this.reset();
-            }
-        };
-        respawnTimer.stop();
-        gameTimers.put("respawnTimer", respawnTimer);
-    }
-
     private void initializeAudio() {
         
         AudioManager am = AudioManager.getInstance();
@@ -174,140 +182,185 @@ public class GameMain implements KeyListener {
         
     }
 
-    public static GameMain getInstance() {
-
-        if (instance == null) {
-            instance = new GameMain();
-            return instance;
-        }
-
-        return instance;
-    }
-
-
-
     public void start() {
         
+        if (options.isHeadless()) {
+            runHeadless();
+            return;
+        }
+        if (replay != null) {
+            replay.seek(session, options.getSeek());
+        }
         frame.setVisible(true);
+        display.getComponent().requestFocus();
+        if (renderloop != null) {
+            renderloop.start();
+        }
         gameloop.start();
         AudioManager.getInstance().loopClip("asteroids", Clip.LOOP_CONTINUOUSLY);
         
     }
 
-    public void respawn() {
+    /**
+     * Runs ticks back to back, with nothing drawn, reporting the simulation
+     * rate once a second and at the end. With more than one session, the
+     * sessions are ticked side by side by a SessionHost, and the rates are
+     * totals across all of them.
+     *
+     * A replay is played to its end, after fast-forwarding untimed to the
+     * seek tick, and then reports whether it matched its keyframes.
+     *
+     * The run stops early, and the program exits with status 1, if the first
+     * session (the one a replay plays in) is dropped because its tick threw.
+     */
+    private void runHeadless() {
+
+        // Each session is seeded one on from the last, so the whole run can
+        // be repeated from the first seed.
+        long seed = session.getRandom().getSeed();
+        System.out.println(String.format("Seed %d", seed));
+        SessionHost host = new SessionHost();
+        host.add(session);
+        for (int i = 1; i < options.getSessions(); i++) {
+            GameSession s = new GameSession(session.getWidth(), session.getHeight(), seed + i);
+            s.newGame();
+            host.add(s);
+        }
 
-        gameTimers.get("respawnTimer").start();
-        
-    }
+        if (replay != null) {
+            long seekStart = System.nanoTime();
+            replay.seek(session, options.getSeek());
+            System.out.println(String.format("Fast-forwarded to tick %d in %.0f ms",
+                    session.getTickCount(), (System.nanoTime() - seekStart) / 1e6));
+        }
 
-    public void updateTimers() {
-        for (GameTimer t : gameTimers.values()) {
-            t.tick();
+        PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+        long ticks = options.getTicks();
+        long start = System.nanoTime();
+        long reportStart = start;
+        long reportTicks = 0;
+        long tick = 0;
+        boolean dropped = false;
+        while ((ticks <= 0 || tick < ticks) && (replay == null || !replay.isFinished(session))) {
+            if (!host.contains(session)) {
+                // Its tick threw, so it will never get any further
+                dropped = true;
+                break;
+            }
+            host.tickAll();
+            tick++;
+
+            long now = System.nanoTime();
+            if (now - reportStart >= 1000000000L) {
+                System.out.println(String.format("%d ticks, %.0f ticks/s, %d sessions, %d objects",
+                        tick, (tick - reportTicks) * host.size() * 1e9 / (now - reportStart),
+                        host.size(), monitor.getEntityCount()));
+                reportStart = now;
+                reportTicks = tick;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Simulated %d ticks of %d sessions in %.2f s, %.0f ticks/s",
+                tick, host.size(), seconds, tick * host.size() / seconds));
+        host.shutdown();
+        if (replay != null) {
+            System.out.println(String.format("Replay ended at tick %d of %d, %d keyframes checked, %d mismatched",
+                    session.getTickCount(), replay.getTickCount(),
+                    replay.getKeyframesChecked(), replay.getMismatches()));
+            if (replay.getFirstMismatch() >= 0) {
+                System.out.println(String.format("First mismatch at tick %d", replay.getFirstMismatch()));
+            }
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (dropped) {
+            System.err.println(String.format("Session dropped at tick %d after its tick failed%s",
+                    session.getTickCount(), replay != null ? "; the replay did not finish" : ""));
+            System.exit(1);
         }
+
     }
 
     public void updateGame() {
 
-        GameObjectsManager gom = GameObjectsManager.getInstance();
-        gom.update();
-        gameWave.update(gom.getAsteroidCount());
-        updateTimers();
-        
-    }
+        session.tick();
+        if (session.getInputState().wasPressed(InputState.DEBUG)) {
+            overlay.cycleMode();
+        }
 
-    public boolean isDebug() {
-        return false;
     }
 
-    public void drawGame() {
-        canvas.updateGraphics();
-        canvas.repaint();
+    /**
+     * @return True if the debug overlay is showing.
+     */
+    public boolean isDebug() {
+        return overlay.isEnabled();
     }
 
-    @Override
-    public void keyTyped(KeyEvent e) {
+    /**
+     * @return The options the game was started with.
+     */
+    public GameOptions getOptions() {
+        return options;
     }
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-
-        if (ship.isGhost()) {
-            switch (e.getKeyCode()) {
-                case KeyEvent.VK_ESCAPE:
-                    if( ship.toggleGhost() == false ) {
-                        pause.setEnabled(false);
-                        ticker.setEnabled(false);
-                    }
-                    break;
-            }
-        } else {
-            switch (e.getKeyCode()) {
-                case KeyEvent.VK_LEFT:
-                    ship.setTurnRate(3.5f, GameObject.TURN_LEFT);
-                    break;
-                case KeyEvent.VK_RIGHT:
-                    ship.setTurnRate(3.5f, GameObject.TURN_RIGHT);
-                    break;
-                case KeyEvent.VK_UP:
-                    ship.accelerate(0.45f);
-                    break;
-                case KeyEvent.VK_DOWN:
-                    ship.accelerate(-0.45f);
-                    break;
-                case KeyEvent.VK_F:
-                    ship.fire();
-                    break;
-                case KeyEvent.VK_ESCAPE:
-                    if( ship.toggleGhost() ) {
-                        pause.setEnabled(true); 
-                        ticker.setEnabled(true);
-                    }
-                    break;
-            }
-        }
-
+    /**
+     * @return The game being played in the window.
+     */
+    public GameSession getSession() {
+        return session;
     }
 
-    @Override
-    public void keyReleased(KeyEvent e) {
-        switch( e.getKeyCode() ) {
-            case KeyEvent.VK_LEFT:
-            case KeyEvent.VK_RIGHT:
-                ship.setTurnRate(0f, GameObject.TURN_NONE);
-                break;
-        }
-        
+    /**
+     * Hands the state of the tick just simulated to the renderer.
+     * @param tickTime The System.nanoTime() the tick was due at.
+     */
+    public void publishFrame(long tickTime) {
+        long start = System.nanoTime();
+        session.getObjects().publishSnapshot(tickTime);
+        PerformanceMonitor.getInstance().record(Phase.Snapshot, start);
     }
 
     /**
-     * @return the points
+     * Draws a frame from the latest published snapshot, interpolated to the
+     * current time.
      */
-    public int getPoints() {
-        return points.getPoints();
+    public void drawGame() {
+        long start = System.nanoTime();
+        FrameSnapshot frame = session.getObjects().getSnapshots().getFront();
+        display.render(frame, frame.getInterpolation(start, GameLoop.TICK_NANOS));
+        PerformanceMonitor.getInstance().record(Phase.Render, start);
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
     }
 
     /**
-     * @param points the points to set
+     * Key events arrive on the event dispatch thread, so they are only
+     * queued here, and applied to the ship at the start of the next tick.
      */
-    public void setPoints(int points) {
-        this.points.setPoints(points);
+    @Override
+    public void keyPressed(KeyEvent e) {
+        session.getInputQueue().offer(InputState.encode(e.getKeyCode(), true));
     }
 
-    public void addPoints(int points) {
-        this.points.addPoints(points);
+    @Override
+    public void keyReleased(KeyEvent e) {
+        session.getInputQueue().offer(InputState.encode(e.getKeyCode(), false));
     }
 
         // <editor-fold defaultstate="collapsed" desc="Private Members">
-    private final Ship ship;
-    private final Map<String, GameTimer> gameTimers;
-    private static GameMain instance;
+    private final GameSession session;
     private final GameLoop gameloop;
-    private GameCanvas canvas;
+    private RenderLoop renderloop;
+    private GameDisplay display;
+    private DebugOverlay overlay;
     private JFrame frame;
-    private final PointsDisplay points;
-    private final GameWave gameWave;
-    private final TextDisplay pause;
-    private final TickerTextDisplay ticker;
+    private final GameOptions options;
+    private final Replay replay;
+    private ReplayRecorder recorder;
     // </editor-fold>
 
     
@@ -0,0 +1,233 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+/**
+ * Startup options for the game. Options are read from system properties,
+ * for example:
+ *
+ * <pre>
+ *     java -Dnotasteroids.rotationSteps=64 -jar Asteroids.jar
+ * </pre>
+ *
+ * @author Matthew MacGregor
+ */
+public class GameOptions {
+
+    public static final String ROTATION_STEPS = "notasteroids.rotationSteps";
+    public static final String ROTATION_CACHE_MB = "notasteroids.rotationCacheMB";
+    public static final String RENDERER = "notasteroids.renderer";
+    public static final String DISPLAY = "notasteroids.display";
+    public static final String FPS = "notasteroids.fps";
+    public static final String RENDER_THREAD = "notasteroids.renderThread";
+    public static final String DEBUG = "notasteroids.debug";
+    public static final String HEADLESS = "notasteroids.headless";
+    public static final String TICKS = "notasteroids.ticks";
+    public static final String SESSIONS = "notasteroids.sessions";
+    public static final String SEED = "notasteroids.seed";
+    public static final String RECORD = "notasteroids.record";
+    public static final String REPLAY = "notasteroids.replay";
+    public static final String SEEK = "notasteroids.seek";
+
+    /** Draw with Java2D transforms and image blits (the default). */
+    public static final String RENDERER_JAVA2D = "java2d";
+    /** Draw line art straight into the backbuffer's pixels. */
+    public static final String RENDERER_RASTER = "raster";
+
+    /** Present frames from the game loop through a BufferStrategy. */
+    public static final String DISPLAY_ACTIVE = "active";
+    /** Draw into a Swing panel and let the event thread repaint it (the default). */
+    public static final String DISPLAY_PASSIVE = "passive";
+
+    /**
+     * @return Options read from the system properties, with defaults for
+     * anything not set.
+     */
+    public static GameOptions fromSystemProperties() {
+        GameOptions options = new GameOptions();
+        options.rotationSteps = Integer.getInteger(ROTATION_STEPS, 0);
+        options.rotationCacheBytes = Integer.getInteger(ROTATION_CACHE_MB, 64) * 1024L * 1024L;
+        options.renderer = System.getProperty(RENDERER, RENDERER_JAVA2D);
+        options.display = System.getProperty(DISPLAY, DISPLAY_PASSIVE);
+        options.framesPerSecond = Integer.getInteger(FPS, 60);
+        options.renderThread = Boolean.parseBoolean(System.getProperty(RENDER_THREAD, "true"));
+        options.debug = Boolean.getBoolean(DEBUG);
+        options.headless = Boolean.getBoolean(HEADLESS);
+        options.ticks = Long.getLong(TICKS, 0);
+        options.sessions = Math.max(1, Integer.getInteger(SESSIONS, 1));
+        options.seed = Long.getLong(SEED, System.nanoTime());
+        options.record = System.getProperty(RECORD);
+        options.replay = System.getProperty(REPLAY);
+        options.seek = Integer.getInteger(SEEK, 0);
+        return options;
+    }
+
+    /**
+     * The number of pre-rotated frames per sprite, or 0 to rotate sprites as
+     * they are drawn.
+     * @return the rotationSteps
+     */
+    public int getRotationSteps() {
+        return rotationSteps;
+    }
+
+    /**
+     * The most memory the pre-rotated frames may use.
+     * @return the rotationCacheBytes
+     */
+    public long getRotationCacheBytes() {
+        return rotationCacheBytes;
+    }
+
+    /**
+     * The renderer to draw with, RENDERER_JAVA2D or RENDERER_RASTER.
+     * @return the renderer
+     */
+    public String getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * @return True if the software RasterRenderer was selected.
+     */
+    public boolean isRasterRenderer() {
+        return RENDERER_RASTER.equalsIgnoreCase(renderer);
+    }
+
+    /**
+     * How frames reach the screen, DISPLAY_ACTIVE or DISPLAY_PASSIVE.
+     * @return the display
+     */
+    public String getDisplay() {
+        return display;
+    }
+
+    /**
+     * @return True if frames are presented by the game loop (ActiveGameCanvas).
+     */
+    public boolean isActiveDisplay() {
+        return DISPLAY_ACTIVE.equalsIgnoreCase(display);
+    }
+
+    /**
+     * The most frames to draw per second, or 0 for no limit. The simulation
+     * runs at GameLoop.TICKS_PER_SECOND regardless.
+     * @return the framesPerSecond
+     */
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Whether frames are drawn on their own thread, overlapping with the
+     * simulation of the next tick.
+     * @return the renderThread
+     */
+    public boolean isRenderThread() {
+        return renderThread;
+    }
+
+    /**
+     * Whether the debug overlay is showing when the game starts. It can be
+     * toggled with F3 either way.
+     * @return the debug
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Whether to run the simulation alone: no window, no sound, and ticks
+     * run back to back as fast as they can.
+     * @return the headless
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * How many ticks a headless run simulates before it stops, or 0 to run
+     * until it is killed.
+     * @return the ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * How many games a headless run simulates side by side, spread across
+     * the cores by a SessionHost.
+     * @return the sessions
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * The seed for the game's random numbers. Two games started with the
+     * same seed and played with the same input are identical. Defaults to
+     * the clock.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * A file to record the game to, or null.
+     * @return the record
+     */
+    public String getRecord() {
+        return record;
+    }
+
+    /**
+     * A recorded game to play back instead of reading the keyboard, or null.
+     * @return the replay
+     */
+    public String getReplay() {
+        return replay;
+    }
+
+    /**
+     * The tick to fast-forward a replay to before it is shown (or, headless,
+     * before timing starts).
+     * @return the seek
+     */
+    public int getSeek() {
+        return seek;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private String record;
+    private String replay;
+    private int seek;
+    private long seed;
+    private int sessions;
+    private long ticks;
+    private boolean headless;
+    private boolean debug;
+    private boolean renderThread;
+    private int framesPerSecond;
+    private String display;
+    private String renderer;
+    private int rotationSteps;
+    private long rotationCacheBytes;
+    // </editor-fold>
+}
@@ -0,0 +1,467 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.entities.GameObject;
+import com.sudolink.entities.PointsDisplay;
+import com.sudolink.entities.Ship;
+import com.sudolink.entities.TextDisplay;
+import com.sudolink.entities.TickerTextDisplay;
+import com.sudolink.enumeration.Phase;
+import com.sudolink.manager.FontManager;
+import com.sudolink.manager.GameObjectsManager;
+import com.sudolink.manager.InputQueue;
+import com.sudolink.manager.PerformanceMonitor;
+import com.sudolink.manager.RandomManager;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One game: its world and everything in it, the wave, the timers, the score
+ * and the player's input. Entities are handed the session they belong to
+ * when they are created, and reach the rest of the game through it, so any
+ * number of sessions can run side by side in one process.
+ *
+ * A session is not thread safe. Its ticks must be run by one thread at a
+ * time, although that need not be the same thread each tick (see
+ * SessionHost). Only add() on its GameObjectsManager, offer() on its input
+ * queue and setSize() may be called from other threads.
+ *
+ * Everything from outside that changes the game (the keys and the size of
+ * the world) is taken in at the start of a tick, so a session can be
+ * recorded with a ReplayRecorder and played back exactly with a Replay.
+ * Between ticks, the whole session can be saved and loaded with a
+ * SessionSnapshot.
+ *
+ * @author Matthew MacGregor
+ */
+public class GameSession {
+
+    /**
+     * Creates an empty world. Call newGame() to put a ship and the first wave
+     * in it.
+     * @param width Width of the world.
+     * @param height Height of the world.
+     * @param seed The seed for all of the session's random numbers.
+     */
+    public GameSession(int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        pendingSize = packSize(width, height);
+        random = new RandomManager(seed);
+        objects = new GameObjectsManager(this);
+        gameTimers = new HashMap<>();
+        input = new InputQueue(256);
+        inputState = new InputState();
+    }
+
+    /**
+     * Adds the ship, the score and the other text, and launches the first
+     * wave.
+     */
+    public void newGame() {
+
+        ship = new Ship(this);
+        ship.setXY(width / 2, height / 2);
+        objects.add(ship);
+
+        //Initialize Fonts before initializing TextDisplay objects
+        FontManager fm = FontManager.getInstance();
+        fm.prepareFont("silkscreen", "/media/slkscr.ttf");
+
+        title = new TextDisplay(this, fm.getFont("silkscreen", 24), "Not Asteroids");
+        title.setXY(width * 0.1f, 0);
+        title.setForeground(Color.red);
+
+        points = new PointsDisplay(this, fm.getFont("silkscreen", 24), "");
+        points.setXY(width * 0.7f, 0);
+
+        pause = new TextDisplay(this, fm.getFont("silkscreen", 48), "Press ESC Key");
+        pause.setForeground(Color.red);
+        pause.setXY(width * 0.5f, height * 0.5f);
+        pause.setIsHorizontallyCentered(true);
+        pause.setEnabled(false);
+
+        ticker = new TickerTextDisplay(this, fm.getFont("silkscreen", 18));
+        ticker.setForeground(Color.GRAY);
+        ticker.setXY(width * 0.5f, height * 0.6f);
+        ticker.setEnabled(false);
+        ticker.addMessage("Not Asteroids: A Retro Classic Redux");
+        ticker.addMessage("Programmed by Matthew MacGregor");
+        ticker.addMessage("Version " + GameVersion.getVersion());
+        ticker.addMessage("For Your Vintage Gaming Pleasure");
+        ticker.addMessage("Built From Scratch in Plain Ol' Java");
+        ticker.addMessage("How Do You Like Them Asteroids?");
+
+        objects.add(points);
+        objects.add(title);
+        objects.add(pause);
+        objects.add(ticker);
+
+        // Kept for the whole game, even when a saved game is loaded
+        ship.setRetained(true);
+        points.setRetained(true);
+        title.setRetained(true);
+        pause.setRetained(true);
+        ticker.setRetained(true);
+
+        initializeTimers();
+        gameWave = new GameWave(this);
+        PerformanceMonitor.getInstance().watch(objects);
+
+    }
+
+    /**
+     * Ends the session. Its objects stop being counted by the
+     * PerformanceMonitor.
+     */
+    public void close() {
+        PerformanceMonitor.getInstance().unwatch(objects);
+    }
+
+    /**
+     * Runs one tick of the game: applies the queued input (or the replay's),
+     * moves everything and resolves collisions, then advances the wave and
+     * the timers.
+     */
+    public void tick() {
+
+        PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+        long start = monitor.beginTick();
+        if (recorder != null) {
+            recorder.beginTick(this);
+        }
+        if (replay != null) {
+            replay.beginTick(this);
+        } else {
+            applySize();
+        }
+        applyInput();
+        long t = monitor.record(Phase.Input, start);
+        objects.update();
+        t = monitor.record(Phase.Objects, t);
+        gameWave.update(objects.getAsteroidCount());
+        monitor.record(Phase.Wave, t);
+        updateTimers();
+        tickCount++;
+        monitor.endTick(start);
+
+    }
+
+    public void respawn() {
+
+        gameTimers.get("respawnTimer").start();
+
+    }
+
+    public void updateTimers() {
+        for (GameTimer t : gameTimers.values()) {
+            t.tick();
+        }
+    }
+
+    /**
+     * @return The number of ticks run so far.
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Hashes the state of the game, for checking that a replay plays out as
+     * it was recorded.
+     * @return The hash.
+     */
+    public long getStateHash() {
+        long hash = objects.hashState();
+        hash = hash * 31 + width;
+        hash = hash * 31 + height;
+        hash = hash * 31 + (points == null ? 0 : points.getPoints());
+        return hash;
+    }
+
+    /**
+     * Records the session from the next tick on. Install before the first
+     * tick to record the whole game.
+     * @param recorder The recorder, or null to stop recording. It is not
+     * closed here.
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Plays a recording into this session: from the next tick on, the keys
+     * and the size of the world come from the replay, and the keyboard and
+     * setSize() are ignored. The session must be new, made with the replay's
+     * seed and size.
+     * @param replay The replay, or null to go back to the keyboard.
+     */
+    public void setReplay(Replay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * @return The replay being played, or null.
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * @return The objects in this session's world.
+     */
+    public GameObjectsManager getObjects() {
+        return objects;
+    }
+
+    /**
+     * @return The player's ship, or null before newGame().
+     */
+    public Ship getShip() {
+        return ship;
+    }
+
+    /**
+     * @return The queue key events are offered to. Safe to offer to from one
+     * other thread, such as the event dispatch thread.
+     */
+    public InputQueue getInputQueue() {
+        return input;
+    }
+
+    /**
+     * @return The keys as they stood for the last tick.
+     */
+    public InputState getInputState() {
+        return inputState;
+    }
+
+    /**
+     * @return The session's random number streams.
+     */
+    public RandomManager getRandom() {
+        return random;
+    }
+
+    /**
+     * @return Width of the world.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the world.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Resizes the world, for instance when the window showing it is resized.
+     * The new size takes effect at the start of the next tick, from when
+     * objects wrap at the new edges. Safe to call from any thread.
+     * @param width The new width.
+     * @param height The new height.
+     */
+    public void setSize(int width, int height) {
+        pendingSize = packSize(width, height);
+    }
+
+    /**
+     * @return the points
+     */
+    public int getPoints() {
+        return points.getPoints();
+    }
+
+    /**
+     * @param points the points to set
+     */
+    public void setPoints(int points) {
+        this.points.setPoints(points);
+    }
+
+    public void addPoints(int points) {
+        this.points.addPoints(points);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Package Methods">
+    /**
+     * Resizes the world now, and moves the score and pause text to suit.
+     * Called at the start of a tick, by the session itself or by a Replay.
+     */
+    void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        if (points != null) {
+            points.setXY(width * 0.7f, 0);
+        }
+        if (pause != null) {
+            pause.setX(width * 0.5f);
+        }
+        if (recorder != null) {
+            recorder.recordResize(tickCount, width, height);
+        }
+    }
+
+    /**
+     * Sets the tick the session has got to, when a saved game is loaded.
+     */
+    void setTickCount(int tickCount) {
+        this.tickCount = tickCount;
+    }
+
+    GameWave getGameWave() {
+        return gameWave;
+    }
+
+    Map<String, GameTimer> getTimers() {
+        return gameTimers;
+    }
+
+    PointsDisplay getPointsDisplay() {
+        return points;
+    }
+
+    TextDisplay getTitle() {
+        return title;
+    }
+
+    TextDisplay getPause() {
+        return pause;
+    }
+
+    TickerTextDisplay getTicker() {
+        return ticker;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private static long packSize(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+
+    private void applySize() {
+        long size = pendingSize;
+        if (size != packSize(width, height)) {
+            resize((int) (size >>> 32), (int) size);
+        }
+    }
+
+    private void initializeTimers() {
+        //Initialize Timers
+        GameTimer respawnTimer = new GameTimer(50) {
+            @Override
+            public void action() {
+                ship.setXY(width * 0.5f, height * 0.5f);
+                ship.setRotation(0);
+                ship.setDirection(0);
+                ship.setSpeed(0);
+                ship.toggleImpervious();
+                this.stop();
+                this.reset();
+            }
+        };
+        respawnTimer.stop();
+        gameTimers.put("respawnTimer", respawnTimer);
+    }
+
+    /**
+     * Catches the input state up with the queued key events, and steers the
+     * ship from it. Held keys act once per tick; fire and pause act once per
+     * press.
+     */
+    private void applyInput() {
+
+        inputState.beginTick();
+        int event;
+        while ((event = input.poll()) != InputQueue.EMPTY) {
+            // The keyboard is drained but ignored during a replay
+            if (replay == null) {
+                inputState.apply(event);
+            }
+        }
+        if (replay != null) {
+            replay.next(tickCount, inputState);
+        }
+        if (recorder != null) {
+            recorder.recordInput(tickCount, inputState);
+        }
+
+        if (ship.isGhost()) {
+            if (inputState.wasPressed(InputState.PAUSE) && ship.toggleGhost() == false) {
+                pause.setEnabled(false);
+                ticker.setEnabled(false);
+            }
+            return;
+        }
+
+        if (inputState.wasPressed(InputState.PAUSE) && ship.toggleGhost()) {
+            pause.setEnabled(true);
+            ticker.setEnabled(true);
+            return;
+        }
+
+        boolean left = inputState.isHeld(InputState.LEFT);
+        boolean right = inputState.isHeld(InputState.RIGHT);
+        if (left && !right) {
+            ship.setTurnRate(3.5f, GameObject.TURN_LEFT);
+        } else if (right && !left) {
+            ship.setTurnRate(3.5f, GameObject.TURN_RIGHT);
+        } else {
+            ship.setTurnRate(0f, GameObject.TURN_NONE);
+        }
+        if (inputState.isHeld(InputState.THRUST)) {
+            ship.accelerate(0.45f);
+        }
+        if (inputState.isHeld(InputState.REVERSE)) {
+            ship.accelerate(-0.45f);
+        }
+        if (inputState.wasPressed(InputState.FIRE)) {
+            ship.fire();
+        }
+
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final GameObjectsManager objects;
+    private final Map<String, GameTimer> gameTimers;
+    private final RandomManager random;
+    private int width;
+    private int height;
+    // Written by whoever owns the window, applied by the tick
+    private volatile long pendingSize;
+    private int tickCount;
+    private ReplayRecorder recorder;
+    private Replay replay;
+    private Ship ship;
+    private PointsDisplay points;
+    private GameWave gameWave;
+    private TextDisplay title;
+    private TextDisplay pause;
+    private TickerTextDisplay ticker;
+    // Written by the event dispatch thread, read by the tick
+    private final InputQueue input;
+    private final InputState inputState;
+    // </editor-fold>
+}
@@ -21,6 +21,7 @@ package com.sudolink.game;
 import com.sudolink.enumeration.EntityState;
 import static com.sudolink.enumeration.EntityState.Active;
 import static com.sudolink.enumeration.EntityState.Passive;
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -94,6 +95,28 @@ public abstract class GameTimer {
         return state == Active;
     }
 
+    /**
+     * Writes where the timer has got to, for a saved game. The action and
+     * the parent aren't saved; load into a timer made the same way.
+     * @param buffer The buffer to write to.
+     */
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(currentTicks);
+        buffer.putInt(intervalTicks);
+        buffer.putLong(loopCount);
+        buffer.put((byte) (isEnabled() ? 1 : 0));
+    }
+
+    /**
+     * @param buffer The buffer to read what save() wrote from.
+     */
+    public void load(ByteBuffer buffer) {
+        currentTicks = buffer.getInt();
+        intervalTicks = buffer.getInt();
+        loopCount = buffer.getLong();
+        setEnabled(buffer.get() != 0);
+    }
+
     /**
      * @return the parent
      */
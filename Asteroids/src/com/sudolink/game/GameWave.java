@@ -21,11 +21,15 @@ package com.sudolink.game;
 import com.sudolink.entities.Asteroid;
 import com.sudolink.entities.TimedTextDisplay;
 import com.sudolink.enumeration.EntityState;
+import com.sudolink.enumeration.RandomStream;
+import com.sudolink.events.AsteroidSpawnEvent;
+import com.sudolink.events.WaveLaunchEvent;
 import com.sudolink.manager.AudioManager;
 import com.sudolink.manager.FontManager;
 import com.sudolink.manager.GameObjectsManager;
+import com.sudolink.manager.SplitMix;
 import java.awt.Color;
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a 'wave' (level) of asteroids.
@@ -38,9 +42,11 @@ public class GameWave {
     private final int asteroidsMax = 100;
     private int asteroidsToSpawn = asteroidsInWave;
     private final GameTimer spawnTimer;
+    private final GameSession session;
 
-    public GameWave() {
-        
+    public GameWave(GameSession session) {
+
+        this.session = session;
         spawnTimer = new GameTimer(60) {
             @Override
             public void action() {
@@ -65,28 +71,60 @@ public class GameWave {
         spawnTimer.tick();
     }
 
+    /**
+     * Writes the wave's counters and spawn timer, for a saved game. The
+     * "Wave" text is saved with the rest of the objects.
+     * @param buffer The buffer to write to.
+     */
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(waveNumber);
+        buffer.putInt(asteroidsInWave);
+        buffer.putInt(asteroidsToSpawn);
+        spawnTimer.save(buffer);
+    }
+
+    /**
+     * @param buffer The buffer to read what save() wrote from.
+     */
+    public void load(ByteBuffer buffer) {
+        waveNumber = buffer.getInt();
+        asteroidsInWave = buffer.getInt();
+        asteroidsToSpawn = buffer.getInt();
+        spawnTimer.load(buffer);
+    }
+
     private boolean isWaveDefeated(int asteroidsRemaining) {
         return asteroidsRemaining <= 0 && asteroidsToSpawn <= 0;
     }
     
     private void launchWave() {
 
+        WaveLaunchEvent event = new WaveLaunchEvent();
+        event.begin();
+
         asteroidsInWave =  waveNumber * asteroidsInWave;
         asteroidsInWave = (asteroidsInWave > asteroidsMax) ? asteroidsMax : asteroidsInWave;
         asteroidsToSpawn = asteroidsInWave;
         
         // Display a text object indicating which wave is beginning
         TimedTextDisplay waveText = createWaveText();
-        GameObjectsManager.getInstance().add(waveText);
+        session.getObjects().add(waveText);
         AudioManager.getInstance().playClip("alien-communication");
         
+        event.wave = waveNumber;
+        event.asteroids = asteroidsInWave;
+        event.commit();
         waveNumber++;
         
     }
     
-    private TimedTextDisplay createWaveText() {
+    /**
+     * Makes the text announcing a wave, which hides itself after a while.
+     * Also used to restore it in a saved game.
+     */
+    TimedTextDisplay createWaveText() {
         
-        TimedTextDisplay waveText = new TimedTextDisplay(
+        TimedTextDisplay waveText = new TimedTextDisplay(session,
                 FontManager.getInstance().getFont("silkscreen", 24),
                 "Wave " + waveNumber
         );
@@ -102,7 +140,7 @@ public class GameWave {
             }
         });
         
-        waveText.setXY(GameCanvas.SCREEN_WIDTH * 0.5f, GameCanvas.SCREEN_HEIGHT * 0.75f);
+        waveText.setXY(session.getWidth() * 0.5f, session.getHeight() * 0.75f);
         waveText.setIsHorizontallyCentered(true);
         waveText.setForeground(Color.red);
         return waveText;
@@ -111,38 +149,44 @@ public class GameWave {
     private void spawnAsteroids(int count) {
         //TODO: Improve the Asteroid spawning mechanism (make it generic?)
         
-        GameObjectsManager gm = GameObjectsManager.getInstance();
+        AsteroidSpawnEvent event = new AsteroidSpawnEvent();
+        event.begin();
+        GameObjectsManager gm = session.getObjects();
         
-        Random random = new Random();
+        SplitMix random = session.getRandom().get(RandomStream.Wave);
         int where       = random.nextInt(2);
         int direction   = random.nextInt(30) + 90;
         int direction2  = random.nextInt(30) + 240;
-        float speed     = random.nextFloat() + 1.5f;
-        float variance  = random.nextFloat() + 1.0f;
+        float speed     = (float) random.nextDouble() + 1.5f;
+        float variance  = (float) random.nextDouble() + 1.0f;
         
-        double randomHeight =  Math.random();
+        double randomHeight =  random.nextDouble();
         
         final int OFFSCREEN_LEFT = -40;
-        final int OFFSCREEN_RIGHT = GameCanvas.SCREEN_WIDTH + 20;
+        final int OFFSCREEN_RIGHT = session.getWidth() + 20;
         
         for (int i = 0; i < count; i++) {
 
+            Asteroid a = gm.getAsteroidPool().obtain();
             switch (where) {
                 case 0:
-                    gm.add(new Asteroid(OFFSCREEN_LEFT, (int) (GameCanvas.SCREEN_HEIGHT * randomHeight), (direction * variance), speed));
+                    a.init(OFFSCREEN_LEFT, (int) (session.getHeight() * randomHeight), (direction * variance), speed, Asteroid.Size.UNDEFINED);
                     break;
                 case 1:
-                    gm.add(new Asteroid(OFFSCREEN_LEFT, (int) (GameCanvas.SCREEN_HEIGHT * randomHeight), (direction2 * variance), speed));
+                    a.init(OFFSCREEN_LEFT, (int) (session.getHeight() * randomHeight), (direction2 * variance), speed, Asteroid.Size.UNDEFINED);
                     break;
                 default:
-                    gm.add(new Asteroid(OFFSCREEN_RIGHT, -40, direction, speed));
+                    a.init(OFFSCREEN_RIGHT, -40, direction, speed, Asteroid.Size.UNDEFINED);
             }
+            gm.add(a);
             where++;
-            randomHeight = Math.random();
+            randomHeight = random.nextDouble();
             if (where > 1) {
                 where = 0;
             }
         }
+        event.count = count;
+        event.commit();
     }
 
 }
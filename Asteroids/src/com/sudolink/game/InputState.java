@@ -0,0 +1,142 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * The state of the game's keys for one tick, as bit masks: which keys are
+ * held down, and which went down during the tick. Key events are encoded
+ * into ints on the event dispatch thread with encode(), queued, and replayed
+ * into the state with apply() at the start of the tick.
+ *
+ * Key repeat is ignored. A key that is already held doesn't go down again,
+ * and nor does one that is released and pressed again within a single tick,
+ * which is how some platforms report repeat.
+ *
+ * @author Matthew MacGregor
+ */
+public class InputState {
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int THRUST = 1 << 2;
+    public static final int REVERSE = 1 << 3;
+    public static final int FIRE = 1 << 4;
+    public static final int PAUSE = 1 << 5;
+    public static final int DEBUG = 1 << 6;
+
+    /**
+     * @param keyCode A KeyEvent key code.
+     * @return The game key it is bound to, or 0 if none.
+     */
+    public static int keyFor(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_LEFT:
+                return LEFT;
+            case KeyEvent.VK_RIGHT:
+                return RIGHT;
+            case KeyEvent.VK_UP:
+                return THRUST;
+            case KeyEvent.VK_DOWN:
+                return REVERSE;
+            case KeyEvent.VK_F:
+                return FIRE;
+            case KeyEvent.VK_ESCAPE:
+                return PAUSE;
+            case KeyEvent.VK_F3:
+                return DEBUG;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Packs a key event into an int for the InputQueue.
+     * @param keyCode A KeyEvent key code.
+     * @param pressed True for a key press, false for a release.
+     * @return The event.
+     */
+    public static int encode(int keyCode, boolean pressed) {
+        return keyCode << 1 | (pressed ? 1 : 0);
+    }
+
+    /**
+     * Forgets the keys that went down last tick. Held keys stay held.
+     */
+    public void beginTick() {
+        pressed = 0;
+        released = 0;
+    }
+
+    /**
+     * Applies a key event made with encode().
+     * @param event The event.
+     */
+    public void apply(int event) {
+        int key = keyFor(event >>> 1);
+        if ((event & 1) != 0) {
+            if ((held & key) == 0 && (released & key) == 0) {
+                pressed |= key;
+            }
+            held |= key;
+        } else {
+            held &= ~key;
+            released |= key;
+        }
+    }
+
+    /**
+     * Replaces the whole state, as when a recorded tick is replayed.
+     * @param held The keys held down.
+     * @param pressed The keys that went down this tick.
+     */
+    public void set(int held, int pressed) {
+        this.held = held;
+        this.pressed = pressed;
+        released = 0;
+    }
+
+    public boolean isHeld(int key) {
+        return (held & key) != 0;
+    }
+
+    /**
+     * @param key The key.
+     * @return True if the key went down this tick, even if it has already
+     * been released again.
+     */
+    public boolean wasPressed(int key) {
+        return (pressed & key) != 0;
+    }
+
+    public int getHeld() {
+        return held;
+    }
+
+    public int getPressed() {
+        return pressed;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private int held;
+    private int pressed;
+    private int released;
+    // </editor-fold>
+}
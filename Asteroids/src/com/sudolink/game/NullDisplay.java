@@ -0,0 +1,54 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.manager.FrameSnapshot;
+import java.awt.Component;
+
+/**
+ * A display that shows nothing, for running the game headless.
+ *
+ * @author Matthew MacGregor
+ */
+public class NullDisplay implements GameDisplay {
+
+    /**
+     * @return Null, there is no component.
+     */
+    @Override
+    public Component getComponent() {
+        return null;
+    }
+
+    @Override
+    public void refreshBuffer(int width, int height) {
+    }
+
+    @Override
+    public void setRasterEnabled(boolean enabled) {
+    }
+
+    @Override
+    public void setDebugOverlay(DebugOverlay overlay) {
+    }
+
+    @Override
+    public void render(FrameSnapshot frame, float alpha) {
+    }
+}
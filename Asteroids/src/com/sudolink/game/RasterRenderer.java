@@ -0,0 +1,298 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.entities.Outline;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A software renderer that writes straight into the pixels of an int backed
+ * image. The game is all line art, so objects describe themselves as polygon
+ * outlines and lines (see GameObject.getOutline()), which are drawn with
+ * Bresenham lines and an even-odd scanline fill. Nothing here allocates
+ * once the scratch arrays have grown to fit the largest polygon.
+ *
+ * Coordinates passed to the drawing methods are in the object's local space,
+ * and are mapped to the screen by the transform set with setTransform().
+ *
+ * @author Matthew MacGregor
+ */
+public class RasterRenderer {
+
+    /**
+     * @param image The image to draw into. Must be TYPE_INT_RGB or
+     * TYPE_INT_ARGB; colors are written as given, alpha included.
+     */
+    public RasterRenderer(BufferedImage image) {
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        width = image.getWidth();
+        height = image.getHeight();
+        screenX = new int[8];
+        screenY = new int[8];
+        crossings = new float[8];
+    }
+
+    /**
+     * Fills the whole image with one color.
+     * @param rgb The color.
+     */
+    public void clear(int rgb) {
+        Arrays.fill(pixels, rgb);
+    }
+
+    /**
+     * Sets up the transform for the next shapes: local coordinates are
+     * rotated about a pivot, then moved so the pivot lands on the center.
+     * @param centerX Screen position of the pivot.
+     * @param centerY Screen position of the pivot.
+     * @param rotation Rotation in degrees, clockwise.
+     * @param pivotX Local coordinate to rotate about.
+     * @param pivotY Local coordinate to rotate about.
+     */
+    public void setTransform(float centerX, float centerY, float rotation, float pivotX, float pivotY) {
+        double radians = Math.toRadians(rotation);
+        cos = (float) Math.cos(radians);
+        sin = (float) Math.sin(radians);
+        // Fold the pivot into the translation, so mapping a point is just
+        // a rotation and an add.
+        offsetX = centerX - (cos * pivotX - sin * pivotY);
+        offsetY = centerY - (sin * pivotX + cos * pivotY);
+    }
+
+    /**
+     * Draws an object's outline, filling it first if it has a fill color.
+     * @param outline The outline.
+     */
+    public void draw(Outline outline) {
+        int[] xs = outline.getXPoints();
+        int[] ys = outline.getYPoints();
+        int n = outline.getPointCount();
+        if (outline.isFilled()) {
+            fillPolygon(xs, ys, n, outline.getFillRGB());
+        }
+        if (outline.isClosed()) {
+            drawPolygon(xs, ys, n, outline.getStrokeRGB());
+        } else {
+            drawPolyline(xs, ys, n, outline.getStrokeRGB());
+        }
+    }
+
+    /**
+     * Draws connected lines through a series of points.
+     * @param xs Local x coordinates.
+     * @param ys Local y coordinates.
+     * @param n Number of points.
+     * @param rgb Color.
+     */
+    public void drawPolyline(int[] xs, int[] ys, int n, int rgb) {
+        if (n == 0 || !transform(xs, ys, n)) {
+            return;
+        }
+        for (int i = 1; i < n; i++) {
+            line(screenX[i - 1], screenY[i - 1], screenX[i], screenY[i], rgb);
+        }
+        if (n == 1) {
+            line(screenX[0], screenY[0], screenX[0], screenY[0], rgb);
+        }
+    }
+
+    /**
+     * Draws the outline of a closed polygon.
+     * @param xs Local x coordinates.
+     * @param ys Local y coordinates.
+     * @param n Number of points.
+     * @param rgb Color.
+     */
+    public void drawPolygon(int[] xs, int[] ys, int n, int rgb) {
+        if (n == 0 || !transform(xs, ys, n)) {
+            return;
+        }
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            line(screenX[j], screenY[j], screenX[i], screenY[i], rgb);
+        }
+    }
+
+    /**
+     * Fills the inside of a polygon, using the even-odd rule.
+     * @param xs Local x coordinates.
+     * @param ys Local y coordinates.
+     * @param n Number of points.
+     * @param rgb Color.
+     */
+    public void fillPolygon(int[] xs, int[] ys, int n, int rgb) {
+        if (n < 3 || !transform(xs, ys, n)) {
+            return;
+        }
+        if (crossings.length < n) {
+            crossings = new float[n];
+        }
+
+        int top = Math.max(0, minY);
+        int bottom = Math.min(height - 1, maxY);
+        for (int y = top; y <= bottom; y++) {
+            // Sample through pixel centers so shared edges are only filled once
+            float sampleY = y + 0.5f;
+            int count = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                int y0 = screenY[j];
+                int y1 = screenY[i];
+                if ((y0 <= sampleY) != (y1 <= sampleY)) {
+                    int x0 = screenX[j];
+                    float x = x0 + (sampleY - y0) * (screenX[i] - x0) / (y1 - y0);
+                    // Insertion sort, polygons here only have a handful of edges
+                    int k = count++;
+                    while (k > 0 && crossings[k - 1] > x) {
+                        crossings[k] = crossings[k - 1];
+                        k--;
+                    }
+                    crossings[k] = x;
+                }
+            }
+
+            int row = y * width;
+            for (int c = 0; c + 1 < count; c += 2) {
+                int left = Math.max(0, (int) Math.ceil(crossings[c] - 0.5f));
+                int right = Math.min(width, (int) Math.ceil(crossings[c + 1] - 0.5f));
+                if (left < right) {
+                    Arrays.fill(pixels, row + left, row + right, rgb);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a line between two local points.
+     * @param x0 Start x.
+     * @param y0 Start y.
+     * @param x1 End x.
+     * @param y1 End y.
+     * @param rgb Color.
+     */
+    public void drawLine(int x0, int y0, int x1, int y1, int rgb) {
+        lineX[0] = x0;
+        lineY[0] = y0;
+        lineX[1] = x1;
+        lineY[1] = y1;
+        if (transform(lineX, lineY, 2)) {
+            line(screenX[0], screenY[0], screenX[1], screenY[1], rgb);
+        }
+    }
+
+    /**
+     * Sets a single local point.
+     * @param x Local x.
+     * @param y Local y.
+     * @param rgb Color.
+     */
+    public void plot(int x, int y, int rgb) {
+        int sx = round(offsetX + cos * x - sin * y);
+        int sy = round(offsetY + sin * x + cos * y);
+        if (sx >= 0 && sx < width && sy >= 0 && sy < height) {
+            pixels[sy * width + sx] = rgb;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+
+    /**
+     * Maps local points into screenX/screenY and records their extent.
+     * @return False if the points are entirely off the image.
+     */
+    private boolean transform(int[] xs, int[] ys, int n) {
+        if (screenX.length < n) {
+            screenX = new int[n];
+            screenY = new int[n];
+        }
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int sx = round(offsetX + cos * xs[i] - sin * ys[i]);
+            int sy = round(offsetY + sin * xs[i] + cos * ys[i]);
+            screenX[i] = sx;
+            screenY[i] = sy;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+        }
+        return maxX >= 0 && minX < width && maxY >= 0 && minY < height;
+    }
+
+    /**
+     * Bresenham's line between two screen points, clipped per pixel.
+     */
+    private void line(int x0, int y0, int x1, int y1, int rgb) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int stepX = x0 < x1 ? 1 : -1;
+        int stepY = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+                pixels[y0 * width + x0] = rgb;
+            }
+            if (x0 == x1 && y0 == y1) {
+                break;
+            }
+            int e2 = err * 2;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += stepX;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += stepY;
+            }
+        }
+    }
+
+    private static int round(float value) {
+        return (int) Math.floor(value + 0.5f);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final int[] lineX = new int[2];
+    private final int[] lineY = new int[2];
+    private int[] screenX;
+    private int[] screenY;
+    private float[] crossings;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+    private float cos;
+    private float sin;
+    private float offsetX;
+    private float offsetY;
+    // </editor-fold>
+}
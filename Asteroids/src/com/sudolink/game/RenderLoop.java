@@ -0,0 +1,75 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+/**
+ * Draws frames on a thread of its own, so the next tick can be simulated
+ * while the current one is on its way to the screen. Each frame draws the
+ * latest snapshot published by the GameLoop, interpolated to the time the
+ * frame is drawn.
+ *
+ * @author Matthew MacGregor
+ */
+public class RenderLoop implements Runnable {
+
+    /**
+     * @param c The game.
+     * @param framesPerSecond The most frames to draw per second, or 0 to draw
+     * as fast as possible (e.g. when the display waits for vertical sync).
+     */
+    public RenderLoop(GameMain c, int framesPerSecond) {
+        main = c;
+        // A late frame is drawn and the schedule moves on from it. Catching
+        // up would only draw the same snapshot again straight afterwards.
+        pacer = new FramePacer(framesPerSecond > 0 ? 1000000000L / framesPerSecond : 0, false);
+    }
+
+    /**
+     * @return The pacer, for its timing statistics.
+     */
+    public FramePacer getPacer() {
+        return pacer;
+    }
+
+    @Override
+    public void run() {
+        Thread t = Thread.currentThread();
+        pacer.start();
+        while (t == renderloop) {
+            main.drawGame();
+            pacer.awaitNextFrame();
+        }
+    }
+
+    public void stop() {
+        renderloop = null;
+    }
+
+    public void start() {
+        renderloop = new Thread(this, "Render");
+        renderloop.setDaemon(true);
+        renderloop.start();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private Thread renderloop;
+    private final GameMain main;
+    private final FramePacer pacer;
+    // </editor-fold>
+}
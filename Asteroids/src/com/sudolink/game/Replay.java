@@ -0,0 +1,317 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * A recorded session, played back. A session is reproduced exactly by its
+ * seed, the size of its world, and the keys as they stood each tick, which
+ * is all a replay holds (see ReplayRecorder for the layout). Install it with
+ * GameSession.setReplay() on a new session made from getSeed(), getWidth()
+ * and getHeight(), and each tick then takes its input from the replay
+ * instead of the keyboard.
+ *
+ * Every so often the recording holds a keyframe with a hash of the world
+ * as it stood. Playback checks the session against each keyframe it
+ * passes, so a replay that no longer plays out the same (because the game
+ * has changed since it was recorded) is caught at the keyframe where it
+ * went wrong. The keyframes are listed in an index at the end of the file,
+ * and some of them hold a SessionSnapshot of the whole world, so seek() can
+ * load the last of those before where it is going and only play the ticks
+ * after it.
+ *
+ * @author Matthew MacGregor
+ */
+public class Replay {
+
+    /** "NARP", at the start and the end of every replay. */
+    public static final int MAGIC = 0x4E415250;
+    public static final short VERSION = 2;
+
+    /**
+     * Reads a whole replay file.
+     * @param file The file.
+     * @return The replay, ready to play from the start.
+     * @throws IOException If the file can't be read or isn't a replay.
+     */
+    public static Replay load(File file) throws IOException {
+        return new Replay(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * @param data A replay, from its position to its limit.
+     * @throws IOException If the data isn't a replay this version can play.
+     */
+    public Replay(ByteBuffer data) throws IOException {
+        this.data = data.slice();
+        int length = this.data.limit();
+        if (length < HEADER_SIZE + FOOTER_SIZE
+                || this.data.getInt(0) != MAGIC
+                || this.data.getInt(length - 4) != MAGIC) {
+            throw new IOException("Not a replay");
+        }
+        short version = this.data.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        seed = this.data.getLong(6);
+        width = this.data.getInt(14);
+        height = this.data.getInt(18);
+        keyframeInterval = this.data.getInt(22);
+        tickCount = this.data.getInt(length - FOOTER_SIZE);
+        end = this.data.getInt(length - FOOTER_SIZE + 4);
+
+        // The index sits between the records and the footer
+        if (tickCount < 0 || end < HEADER_SIZE || end > length - FOOTER_SIZE - 4) {
+            throw new IOException("Damaged replay index");
+        }
+        int count = this.data.getInt(end);
+        if (count < 0 || end + 4 + count * 8L > length - FOOTER_SIZE) {
+            throw new IOException("Damaged replay index");
+        }
+        keyframeTicks = new int[count];
+        keyframeOffsets = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                keyframeTicks[i] = this.data.getInt(end + 4 + i * 8);
+                keyframeOffsets[i] = this.data.getInt(end + 8 + i * 8);
+                if (keyframeOffsets[i] < HEADER_SIZE || keyframeOffsets[i] > end - KEYFRAME_SIZE) {
+                    throw new IOException("Damaged replay index");
+                }
+            }
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IOException("Damaged replay index", ex);
+        }
+        rewind();
+    }
+
+    /**
+     * Goes back to the start, for playing into another new session.
+     */
+    public final void rewind() {
+        pos = HEADER_SIZE;
+        next = 0;
+        held = 0;
+        keyframesChecked = 0;
+        mismatches = 0;
+        firstMismatch = -1;
+    }
+
+    /**
+     * Brings a session being played back up to a tick: loads the nearest
+     * snapshot before the tick, if that is ahead of the session, then plays
+     * the rest of the way as fast as it will go.
+     * @param session The session, which must not be past the tick.
+     * @param tick The tick to stop before. Clamped to the end of the replay.
+     * @throws IllegalStateException If the snapshot can't be loaded.
+     */
+    public void seek(GameSession session, int tick) {
+        int target = Math.min(tick, tickCount);
+        int k = Arrays.binarySearch(keyframeTicks, target);
+        if (k < 0) {
+            k = -(k + 1) - 1;
+        }
+        for (; k >= 0 && keyframeTicks[k] > session.getTickCount(); k--) {
+            int offset = keyframeOffsets[k];
+            int length = data.getInt(offset + 14);
+            if (length > 0) {
+                ByteBuffer state = data.duplicate();
+                state.position(offset + KEYFRAME_SIZE);
+                state.limit(offset + KEYFRAME_SIZE + length);
+                try {
+                    snapshot.load(session, state);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Can't load the keyframe at tick "
+                            + keyframeTicks[k], ex);
+                }
+                // Play on from the keyframe, which is checked as it is passed
+                pos = offset;
+                break;
+            }
+        }
+        while (session.getTickCount() < target) {
+            session.tick();
+        }
+    }
+
+    /**
+     * @param session The session being played back.
+     * @return True once every recorded tick has been played.
+     */
+    public boolean isFinished(GameSession session) {
+        return session.getTickCount() >= tickCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The width of the world when the recording started.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the world when the recording started.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of ticks recorded.
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return The number of ticks between keyframes.
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * @return The number of keyframes in the index.
+     */
+    public int getKeyframeCount() {
+        return keyframeTicks.length;
+    }
+
+    /**
+     * @param index A keyframe, from 0 to getKeyframeCount() - 1.
+     * @return The tick the keyframe was taken before.
+     */
+    public int getKeyframeTick(int index) {
+        return keyframeTicks[index];
+    }
+
+    /**
+     * @return The number of keyframes played past so far.
+     */
+    public int getKeyframesChecked() {
+        return keyframesChecked;
+    }
+
+    /**
+     * @return The number of keyframes the session didn't match.
+     */
+    public int getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * @return The tick of the first keyframe the session didn't match, or -1.
+     */
+    public int getFirstMismatch() {
+        return firstMismatch;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Package Methods">
+    /**
+     * Checks the session against the keyframe for this tick, if there is
+     * one, and applies a resize recorded at this tick. Called by
+     * GameSession before the tick's input.
+     */
+    void beginTick(GameSession session) {
+        int tick = session.getTickCount();
+        if (pos < end && data.get(pos) == TAG_KEYFRAME && data.getInt(pos + 1) == tick) {
+            held = data.get(pos + 5) & 0xFF;
+            long hash = data.getLong(pos + 6);
+            int stateLength = data.getInt(pos + 14);
+            pos += KEYFRAME_SIZE + stateLength;
+            next = tick;
+            keyframesChecked++;
+            if (hash != session.getStateHash()) {
+                mismatches++;
+                if (firstMismatch < 0) {
+                    firstMismatch = tick;
+                }
+            }
+        }
+        if (pos < end && data.get(pos) == TAG_RESIZE && data.getInt(pos + 1) == tick) {
+            session.resize(data.getInt(pos + 5), data.getInt(pos + 9));
+            pos += RESIZE_SIZE;
+        }
+    }
+
+    /**
+     * Sets the input state to the keys as they were recorded for a tick.
+     * Called by GameSession in place of reading the keyboard.
+     */
+    void next(int tick, InputState state) {
+        if (pos < end && data.get(pos) == TAG_INPUT) {
+            int p = pos + 1;
+            int skip = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(p++);
+                skip |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (next + skip == tick) {
+                held = data.get(p) & 0xFF;
+                state.set(held, data.get(p + 1) & 0xFF);
+                pos = p + 2;
+                next = tick + 1;
+                return;
+            }
+        }
+        // Nothing recorded: the same keys are still held, and none went down
+        state.set(held, 0);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    static final byte TAG_INPUT = 1;
+    static final byte TAG_RESIZE = 2;
+    static final byte TAG_KEYFRAME = 3;
+    static final int HEADER_SIZE = 26;
+    static final int KEYFRAME_SIZE = 18;
+    static final int RESIZE_SIZE = 13;
+    static final int FOOTER_SIZE = 12;
+    private final ByteBuffer data;
+    private final long seed;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final int tickCount;
+    // Where the recorded ticks end and the index starts
+    private final int end;
+    private final int[] keyframeTicks;
+    private final int[] keyframeOffsets;
+    private final SessionSnapshot snapshot = new SessionSnapshot();
+    // Playback
+    private int pos;
+    private int next;
+    private int held;
+    private int keyframesChecked;
+    private int mismatches;
+    private int firstMismatch;
+    // </editor-fold>
+}
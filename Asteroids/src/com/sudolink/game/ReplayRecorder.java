@@ -0,0 +1,229 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records a session so it can be played back with Replay. Install it with
+ * GameSession.setRecorder() before the first tick. Everything is big endian:
+ *
+ * <pre>
+ *     header    int MAGIC, short VERSION, long seed, int width, int height,
+ *               int keyframe interval
+ *     ticks     any of, in tick order:
+ *               byte 3, int tick, byte held, long hash, int snapshot
+ *                   length, snapshot                (keyframe)
+ *               byte 2, int tick, int width, int height      (resize)
+ *               byte 1, varint skip, byte held, byte pressed  (input)
+ *     index     int count, then int tick, int offset per keyframe
+ *     footer    int ticks, int index offset, int MAGIC
+ * </pre>
+ *
+ * An input record is only written for a tick whose keys differ from the one
+ * before (something went down, or was let go); every other tick repeats the
+ * held keys with nothing pressed. The skip counts the ticks left out since
+ * the last record or keyframe, so a few minutes of play comes to a few
+ * kilobytes. Every so many keyframes also carry a SessionSnapshot of the
+ * world, which Replay.seek() can jump to instead of playing every tick from
+ * the start.
+ *
+ * Writes are buffered, and a recorder that can't write logs the error and
+ * stops recording rather than stopping the game.
+ *
+ * @author Matthew MacGregor
+ */
+public class ReplayRecorder {
+
+    /** Ticks between keyframes by default, ten seconds' worth. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 10 * GameLoop.TICKS_PER_SECOND;
+    /** Keyframes between snapshots by default, a minute's worth. */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 6;
+
+    /**
+     * Writes the header. Call before the session's first tick.
+     * @param out Where to write the recording. Closed by close().
+     * @param session The session to record.
+     * @param keyframeInterval Ticks between keyframes.
+     * @param snapshotInterval Keyframes between those that carry a snapshot
+     * of the world, starting with the first, or 0 for none.
+     * @throws IOException If the header can't be written.
+     */
+    public ReplayRecorder(OutputStream out, GameSession session, int keyframeInterval,
+            int snapshotInterval) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 65536));
+        this.keyframeInterval = keyframeInterval;
+        this.snapshotInterval = snapshotInterval;
+        snapshot = new SessionSnapshot();
+        keyframeTicks = new int[16];
+        keyframeOffsets = new int[16];
+
+        this.out.writeInt(Replay.MAGIC);
+        this.out.writeShort(Replay.VERSION);
+        this.out.writeLong(session.getRandom().getSeed());
+        this.out.writeInt(session.getWidth());
+        this.out.writeInt(session.getHeight());
+        this.out.writeInt(keyframeInterval);
+    }
+
+    /**
+     * Writes the index and footer, and closes the stream. Safe to call from
+     * any thread, and more than once.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            int indexOffset = out.size();
+            out.writeInt(keyframeCount);
+            for (int i = 0; i < keyframeCount; i++) {
+                out.writeInt(keyframeTicks[i]);
+                out.writeInt(keyframeOffsets[i]);
+            }
+            out.writeInt(ticks);
+            out.writeInt(indexOffset);
+            out.writeInt(Replay.MAGIC);
+            out.close();
+        } catch (IOException ex) {
+            Logger.getLogger(ReplayRecorder.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Package Methods">
+    /**
+     * Writes a keyframe if one is due. Called by GameSession at the start of
+     * a tick, before anything has changed.
+     */
+    synchronized void beginTick(GameSession session) {
+        int tick = session.getTickCount();
+        if (closed || tick % keyframeInterval != 0) {
+            return;
+        }
+        try {
+            if (keyframeCount == keyframeTicks.length) {
+                keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+                keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+            }
+            boolean withSnapshot = snapshotInterval > 0 && keyframeCount % snapshotInterval == 0;
+            keyframeTicks[keyframeCount] = tick;
+            keyframeOffsets[keyframeCount] = out.size();
+            keyframeCount++;
+
+            out.writeByte(Replay.TAG_KEYFRAME);
+            out.writeInt(tick);
+            out.writeByte(held);
+            out.writeLong(session.getStateHash());
+            if (withSnapshot) {
+                ByteBuffer state = snapshot.save(session);
+                out.writeInt(state.remaining());
+                out.write(state.array(), 0, state.remaining());
+            } else {
+                out.writeInt(0);
+            }
+            next = tick;
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Records the world being resized at the start of a tick.
+     */
+    synchronized void recordResize(int tick, int width, int height) {
+        if (closed) {
+            return;
+        }
+        try {
+            out.writeByte(Replay.TAG_RESIZE);
+            out.writeInt(tick);
+            out.writeInt(width);
+            out.writeInt(height);
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Records the keys for a tick, once they have been read.
+     */
+    synchronized void recordInput(int tick, InputState state) {
+        if (closed) {
+            return;
+        }
+        ticks = tick + 1;
+        int h = state.getHeld();
+        int p = state.getPressed();
+        if (h == held && p == 0) {
+            return;
+        }
+        try {
+            out.writeByte(Replay.TAG_INPUT);
+            int skip = tick - next;
+            while ((skip & ~0x7F) != 0) {
+                out.writeByte((skip & 0x7F) | 0x80);
+                skip >>>= 7;
+            }
+            out.writeByte(skip);
+            out.writeByte(h);
+            out.writeByte(p);
+            held = h;
+            next = tick + 1;
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void fail(IOException ex) {
+        Logger.getLogger(ReplayRecorder.class.getName()).log(Level.SEVERE, "Recording stopped", ex);
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final DataOutputStream out;
+    private final int keyframeInterval;
+    private final int snapshotInterval;
+    private final SessionSnapshot snapshot;
+    private int[] keyframeTicks;
+    private int[] keyframeOffsets;
+    private int keyframeCount;
+    private boolean closed;
+    // The number of ticks recorded
+    private int ticks;
+    // The tick after the last input record or keyframe
+    private int next;
+    // The keys held as of the last input record
+    private int held;
+    // </editor-fold>
+}
@@ -0,0 +1,194 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.entities.Outline;
+import com.sudolink.entities.Sprite;
+import com.sudolink.manager.FrameSnapshot;
+import com.sudolink.manager.RotationCache;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a FrameSnapshot. Shared by the GameDisplay implementations, which
+ * only differ in how the frame reaches the screen. Only the snapshot is read,
+ * never the game objects, so this can run on its own thread.
+ *
+ * With Java2D the scene can be drawn onto any Graphics2D, such as a
+ * BufferStrategy's back buffer. The RasterRenderer needs the pixels of an int
+ * backed image, so in that mode the scene is always drawn into the
+ * backbuffer first.
+ *
+ * @author Matthew MacGregor
+ */
+public class SceneRenderer {
+
+    public SceneRenderer(int width, int height) {
+        identity = new AffineTransform();
+        resize(width, height);
+    }
+
+    /**
+     * Replaces the backbuffer with one of a new size.
+     * @param width
+     * @param height
+     */
+    public final void resize(int width, int height) {
+        backbuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        if (g2d != null) {
+            g2d.dispose();
+        }
+        g2d = backbuffer.createGraphics();
+        if (raster != null) {
+            raster = new RasterRenderer(backbuffer);
+        }
+    }
+
+    /**
+     * Switches between drawing with Java2D and drawing line art straight into
+     * the backbuffer's pixels. Objects without an outline (see
+     * GameObject.getOutline()) are still drawn with Java2D.
+     * @param enabled True to use the RasterRenderer.
+     */
+    public void setRasterEnabled(boolean enabled) {
+        raster = enabled ? new RasterRenderer(backbuffer) : null;
+    }
+
+    /**
+     * @return True if the RasterRenderer is in use.
+     */
+    public boolean isRasterEnabled() {
+        return raster != null;
+    }
+
+    /**
+     * @param overlay Drawn over every frame, or null for none.
+     */
+    public void setDebugOverlay(DebugOverlay overlay) {
+        this.overlay = overlay;
+    }
+
+    /**
+     * @return The image the scene is drawn into by drawToBackbuffer().
+     */
+    public BufferedImage getBackbuffer() {
+        return backbuffer;
+    }
+
+    /**
+     * Draws the scene into the backbuffer.
+     * @param frame The snapshot to draw.
+     * @param alpha How far between the snapshot's previous and current state
+     * to draw, from 0 to 1.
+     */
+    public void drawToBackbuffer(FrameSnapshot frame, float alpha) {
+        if (raster != null) {
+            raster.clear(BACKGROUND_RGB);
+        } else {
+            g2d.setTransform(identity);
+            g2d.setPaint(Color.BLACK);
+            g2d.fillRect(0, 0, backbuffer.getWidth(), backbuffer.getHeight());
+        }
+        drawObjects(g2d, frame, alpha);
+        if (overlay != null) {
+            overlay.draw(g2d, backbuffer.getWidth(), backbuffer.getHeight(), frame, alpha);
+        }
+    }
+
+    /**
+     * Draws the scene onto another surface. With the RasterRenderer the scene
+     * is drawn into the backbuffer and copied over.
+     * @param g The Graphics context to draw on; its transform is changed.
+     * @param width Width of the surface.
+     * @param height Height of the surface.
+     * @param frame The snapshot to draw.
+     * @param alpha How far between the snapshot's previous and current state
+     * to draw, from 0 to 1.
+     */
+    public void draw(Graphics2D g, int width, int height, FrameSnapshot frame, float alpha) {
+        if (raster != null) {
+            drawToBackbuffer(frame, alpha);
+            g.setTransform(identity);
+            g.drawImage(backbuffer, 0, 0, null);
+            return;
+        }
+        g.setTransform(identity);
+        g.setPaint(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        drawObjects(g, frame, alpha);
+        if (overlay != null) {
+            overlay.draw(g, width, height, frame, alpha);
+        }
+    }
+
+    /**
+     * @return the identity
+     */
+    public AffineTransform getIdentity() {
+        return identity;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void drawObjects(Graphics2D g, FrameSnapshot frame, float alpha) {
+        RotationCache rotations = RotationCache.getInstance();
+        for (int i = 0; i < frame.size(); i++) {
+            float halfWidth = frame.getWidth(i) / 2;
+            float halfHeight = frame.getHeight(i) / 2;
+            float centerX = frame.getX(i, alpha) + halfWidth;
+            float centerY = frame.getY(i, alpha) + halfHeight;
+            float rotation = frame.getRotation(i, alpha);
+
+            Outline outline = frame.getOutline(i);
+            if (raster != null && outline != null) {
+                raster.setTransform(centerX, centerY, rotation, halfWidth, halfHeight);
+                raster.draw(outline);
+                continue;
+            }
+
+            Sprite s = frame.getSprite(i);
+            if (s == null) {
+                continue;
+            }
+            if (rotations.isEnabled()) {
+                rotations.draw(g, s, rotation, centerX, centerY);
+                continue;
+            }
+            g.setTransform(identity);
+            g.translate(centerX, centerY);
+            g.rotate(Math.toRadians(rotation));
+            g.translate(-halfWidth, -halfHeight);
+            // Solves the problem of polygons looking crappy during rotation.
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            s.draw(g, 0, 0);
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int BACKGROUND_RGB = Color.BLACK.getRGB();
+    private final AffineTransform identity;
+    private BufferedImage backbuffer;
+    private Graphics2D g2d;
+    private RasterRenderer raster;
+    private DebugOverlay overlay;
+    // </editor-fold>
+}
@@ -0,0 +1,171 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs many GameSessions at once on a work-stealing pool. Each call to
+ * tickAll() ticks every session once: the sessions are split in halves until
+ * each task holds one session, so a worker that finishes its share early
+ * steals from the others, and a session with a busy tick (a wave launching,
+ * a ship exploding) doesn't hold up the rest.
+ *
+ * A session is only ever ticked by one worker at a time, and tickAll() waits
+ * for every tick to finish, so sessions need no locking of their own.
+ * Sessions may be added and removed from any thread; the change takes effect
+ * from the next call to tickAll().
+ *
+ * @author Matthew MacGregor
+ */
+public class SessionHost {
+
+    /**
+     * Creates a host with one worker per core.
+     */
+    public SessionHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism The number of worker threads.
+     */
+    public SessionHost(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+        sessions = new GameSession[0];
+    }
+
+    /**
+     * @param session A session to tick from now on.
+     */
+    public synchronized void add(GameSession session) {
+        GameSession[] s = Arrays.copyOf(sessions, sessions.length + 1);
+        s[s.length - 1] = session;
+        sessions = s;
+    }
+
+    /**
+     * @param session A session to stop ticking. It is not closed.
+     */
+    public synchronized void remove(GameSession session) {
+        GameSession[] s = sessions;
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] == session) {
+                GameSession[] smaller = new GameSession[s.length - 1];
+                System.arraycopy(s, 0, smaller, 0, i);
+                System.arraycopy(s, i + 1, smaller, i, s.length - i - 1);
+                sessions = smaller;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param session A session.
+     * @return True if the session is still being ticked; a session whose
+     * tick threw has been dropped.
+     */
+    public boolean contains(GameSession session) {
+        for (GameSession s : sessions) {
+            if (s == session) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of sessions being ticked.
+     */
+    public int size() {
+        return sessions.length;
+    }
+
+    /**
+     * Ticks every session once, and returns when they are all done. A session
+     * whose tick throws is logged, removed and closed; the others carry on.
+     */
+    public void tickAll() {
+        GameSession[] s = sessions;
+        if (s.length == 1) {
+            // Not worth handing to the pool
+            tick(s[0]);
+        } else if (s.length > 1) {
+            pool.invoke(new TickTask(s, 0, s.length));
+        }
+    }
+
+    /**
+     * Stops the worker threads. The host can't be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void tick(GameSession session) {
+        try {
+            session.tick();
+        } catch (RuntimeException ex) {
+            Logger.getLogger(SessionHost.class.getName()).log(Level.SEVERE, null, ex);
+            remove(session);
+            session.close();
+        }
+    }
+
+    /**
+     * Ticks the sessions from start (inclusive) to end (exclusive).
+     */
+    private class TickTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        TickTask(GameSession[] sessions, int start, int end) {
+            this.sessions = sessions;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                tick(sessions[start]);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new TickTask(sessions, start, middle),
+                    new TickTask(sessions, middle, end));
+        }
+
+        private final GameSession[] sessions;
+        private final int start;
+        private final int end;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final ForkJoinPool pool;
+    // Replaced, never modified, so tickAll() can read it without locking
+    private volatile GameSession[] sessions;
+    // </editor-fold>
+}
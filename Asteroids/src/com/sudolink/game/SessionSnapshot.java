@@ -0,0 +1,296 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.game;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.entities.Bullet;
+import com.sudolink.entities.GameObject;
+import com.sudolink.entities.StickParticle;
+import com.sudolink.entities.TimedTextDisplay;
+import com.sudolink.manager.GameObjectsManager;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the whole state of a GameSession into a ByteBuffer, and loads it
+ * back: every object in the world, the wave, the timers, the score and the
+ * random number streams. A loaded session carries on exactly as the saved
+ * one would have, so a snapshot serves as a saved game, a crash dump or a
+ * test fixture, and lets a Replay jump to its keyframes.
+ *
+ * Everything is big endian:
+ *
+ * <pre>
+ *     header    int MAGIC, short VERSION, int tick, int width, int height
+ *     random    long state, per RandomStream
+ *     wave      int wave number, int asteroids in wave, int asteroids to
+ *               spawn, timer
+ *     timers    byte count, then short length, chars of name, timer each
+ *     objects   int count, then byte type, object state each, in draw order
+ *     queued    int count, then the same, oldest first
+ * </pre>
+ *
+ * A timer is int ticks, int interval, long loops, byte enabled. An object
+ * is short z, byte team, and its row of the EntityStore (see
+ * EntityStore.save()), followed by anything of its own: an asteroid's size
+ * and shape, a particle's length and age, the ship's color and impervious
+ * timer, and the text of a text display. An asteroid comes to 70 bytes
+ * with its type.
+ *
+ * Writing allocates nothing. Loading takes its objects from the pools, so it
+ * only allocates when a pool runs dry, and for text.
+ *
+ * The input isn't part of a snapshot: a loaded session takes its keys from
+ * wherever it is told to, as before.
+ *
+ * @author Matthew MacGregor
+ */
+public class SessionSnapshot {
+
+    /** "NASS", at the start of every snapshot. */
+    public static final int MAGIC = 0x4E415353;
+    public static final short VERSION = 1;
+
+    public SessionSnapshot() {
+        buffer = ByteBuffer.allocate(16384);
+        queued = new GameObject[64];
+    }
+
+    /**
+     * Saves a session into a buffer owned by this snapshot, which grows to
+     * fit and is reused by the next save.
+     * @param session The session, between ticks.
+     * @return The buffer, from 0 to the end of the snapshot. Valid until the
+     * next call.
+     */
+    public ByteBuffer save(GameSession session) {
+        while (true) {
+            buffer.clear();
+            try {
+                write(session, buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException ex) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Saves a session at a buffer's position, and moves the position past
+     * the snapshot.
+     * @param session The session, between ticks.
+     * @param out The buffer.
+     * @throws BufferOverflowException If the snapshot doesn't fit. The
+     * buffer's position is then undefined.
+     */
+    public void write(GameSession session, ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putInt(session.getTickCount());
+        out.putInt(session.getWidth());
+        out.putInt(session.getHeight());
+        session.getRandom().save(out);
+        session.getGameWave().save(out);
+
+        Map<String, GameTimer> timers = session.getTimers();
+        out.put((byte) timers.size());
+        for (Map.Entry<String, GameTimer> e : timers.entrySet()) {
+            String name = e.getKey();
+            out.putShort((short) name.length());
+            for (int i = 0; i < name.length(); i++) {
+                out.putChar(name.charAt(i));
+            }
+            e.getValue().save(out);
+        }
+
+        GameObjectsManager objects = session.getObjects();
+        int countAt = out.position();
+        out.putInt(0);
+        int count = 0;
+        for (int l = 0; l < objects.getLayers().getLayerCount(); l++) {
+            List<GameObject> layer = objects.getLayers().getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                writeObject(session, layer.get(i), out);
+                count++;
+            }
+        }
+        out.putInt(countAt, count);
+
+        // The queue links the newest first, so it is gathered and written
+        // backwards
+        count = 0;
+        for (GameObject o = objects.getQueued(); o != null; o = o.getSpawnNext()) {
+            if (count == queued.length) {
+                queued = Arrays.copyOf(queued, count * 2);
+            }
+            queued[count++] = o;
+        }
+        out.putInt(count);
+        for (int i = count - 1; i >= 0; i--) {
+            writeObject(session, queued[i], out);
+            queued[i] = null;
+        }
+    }
+
+    /**
+     * Loads a snapshot into a session, replacing everything in its world.
+     * The session must have had newGame() called, and must not be being
+     * recorded. Any replay it is playing is left where it is.
+     * @param session The session, between ticks.
+     * @param in The snapshot, from the buffer's position. The position is
+     * moved past it.
+     * @throws IOException If the data isn't a snapshot this version can
+     * load. If the snapshot is cut short or damaged, the session may be left
+     * half loaded.
+     */
+    public void load(GameSession session, ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+            short version = in.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int tick = in.getInt();
+            int width = in.getInt();
+            int height = in.getInt();
+
+            GameObjectsManager objects = session.getObjects();
+            objects.clear();
+            session.setTickCount(tick);
+            if (width != session.getWidth() || height != session.getHeight()) {
+                session.resize(width, height);
+            }
+            session.getRandom().load(in);
+            session.getGameWave().load(in);
+
+            Map<String, GameTimer> timers = session.getTimers();
+            for (int t = in.get(); t > 0; t--) {
+                char[] name = new char[in.getShort()];
+                for (int i = 0; i < name.length; i++) {
+                    name[i] = in.getChar();
+                }
+                GameTimer timer = timers.get(new String(name));
+                if (timer == null) {
+                    throw new IOException("Unknown timer " + new String(name));
+                }
+                timer.load(in);
+            }
+
+            for (int i = in.getInt(); i > 0; i--) {
+                objects.insert(readObject(session, in));
+            }
+            for (int i = in.getInt(); i > 0; i--) {
+                objects.add(readObject(session, in));
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Damaged snapshot", ex);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private void writeObject(GameSession session, GameObject o, ByteBuffer out) {
+        out.put(typeOf(session, o));
+        o.save(out);
+    }
+
+    private static byte typeOf(GameSession session, GameObject o) {
+        if (o instanceof Asteroid) {
+            return ASTEROID;
+        } else if (o instanceof Bullet) {
+            return BULLET;
+        } else if (o instanceof StickParticle) {
+            return PARTICLE;
+        } else if (o == session.getShip()) {
+            return SHIP;
+        } else if (o == session.getPointsDisplay()) {
+            return POINTS;
+        } else if (o == session.getTitle()) {
+            return TITLE;
+        } else if (o == session.getPause()) {
+            return PAUSE;
+        } else if (o == session.getTicker()) {
+            return TICKER;
+        } else if (o instanceof TimedTextDisplay) {
+            return WAVE_TEXT;
+        }
+        throw new IllegalArgumentException("Can't save " + o.getClass().getName());
+    }
+
+    private static GameObject readObject(GameSession session, ByteBuffer in) throws IOException {
+        GameObject o;
+        byte type = in.get();
+        switch (type) {
+            case ASTEROID:
+                o = session.getObjects().getAsteroidPool().obtain();
+                break;
+            case BULLET:
+                o = session.getObjects().getBulletPool().obtain();
+                break;
+            case PARTICLE:
+                o = session.getObjects().getParticlePool().obtain();
+                break;
+            case SHIP:
+                o = session.getShip();
+                break;
+            case POINTS:
+                o = session.getPointsDisplay();
+                break;
+            case TITLE:
+                o = session.getTitle();
+                break;
+            case PAUSE:
+                o = session.getPause();
+                break;
+            case TICKER:
+                o = session.getTicker();
+                break;
+            case WAVE_TEXT:
+                o = session.getGameWave().createWaveText();
+                break;
+            default:
+                throw new IOException("Unknown object type " + type);
+        }
+        o.load(in);
+        return o;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final byte SHIP = 1;
+    private static final byte ASTEROID = 2;
+    private static final byte BULLET = 3;
+    private static final byte PARTICLE = 4;
+    private static final byte POINTS = 5;
+    private static final byte TITLE = 6;
+    private static final byte PAUSE = 7;
+    private static final byte TICKER = 8;
+    private static final byte WAVE_TEXT = 9;
+    private ByteBuffer buffer;
+    // Scratch for putting the queue in order
+    private GameObject[] queued;
+    // </editor-fold>
+}
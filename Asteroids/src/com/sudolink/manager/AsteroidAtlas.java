@@ -0,0 +1,177 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.entities.Outline;
+import com.sudolink.entities.Sprite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * A library of pre-generated asteroid shapes, rasterized once into a single
+ * shared image. Each asteroid just refers to a shape by size and id, so the
+ * memory used for asteroid graphics stays the same no matter how many are on
+ * screen.
+ *
+ * The atlas has one row per asteroid size, and SHAPES_PER_SIZE cells per row.
+ *
+ * @author Matthew MacGregor
+ */
+public class AsteroidAtlas {
+
+    /** The number of different shapes available for each asteroid size. */
+    public static final int SHAPES_PER_SIZE = 16;
+    /** The largest size an asteroid can be (see Asteroid.generateSize). */
+    public static final int MAX_SIZE = 4;
+
+    // Singleton
+    private AsteroidAtlas() {
+        shapes = new Polygon[MAX_SIZE + 1][SHAPES_PER_SIZE];
+        sprites = new Sprite[MAX_SIZE + 1][SHAPES_PER_SIZE];
+        outlines = new Outline[MAX_SIZE + 1][SHAPES_PER_SIZE];
+
+        // Fixed seed, so the shape library is the same on every run
+        Random random = new Random(SEED);
+        int rowY = 0;
+        int cell = cellSize(MAX_SIZE);
+        atlas = new BufferedImage(cell * SHAPES_PER_SIZE, atlasHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = atlas.createGraphics();
+
+        for (int size = 0; size <= MAX_SIZE; size++) {
+            int extent = cellSize(size);
+            for (int id = 0; id < SHAPES_PER_SIZE; id++) {
+                Polygon poly = createPolygon(size, random);
+                shapes[size][id] = poly;
+
+                int cellX = id * cell;
+                g2d.translate(cellX, rowY);
+                g2d.setPaint(Color.BLACK);
+                g2d.fillPolygon(poly);
+                g2d.setPaint(Color.GREEN);
+                g2d.drawPolygon(poly);
+                g2d.translate(-cellX, -rowY);
+
+                sprites[size][id] = new Sprite(atlas, cellX, rowY, extent, extent);
+                outlines[size][id] = new Outline(poly.xpoints, poly.ypoints, poly.npoints,
+                        true, Color.GREEN, Color.BLACK);
+            }
+            rowY += extent;
+        }
+        g2d.dispose();
+    }
+
+    public static synchronized AsteroidAtlas getInstance() {
+        if (instance == null) {
+            instance = new AsteroidAtlas();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the picture for an asteroid shape.
+     * @param size The asteroid size (one of the Asteroid.Size constants).
+     * @param shapeId The shape id, less than SHAPES_PER_SIZE.
+     * @return The sprite for the shape.
+     */
+    public Sprite getSprite(int size, int shapeId) {
+        return sprites[size][shapeId];
+    }
+
+    /**
+     * Returns the outline of an asteroid shape, in the asteroid's local
+     * coordinates. The polygon is shared and must not be modified.
+     * @param size The asteroid size (one of the Asteroid.Size constants).
+     * @param shapeId The shape id, less than SHAPES_PER_SIZE.
+     * @return The outline.
+     */
+    public Polygon getShape(int size, int shapeId) {
+        return shapes[size][shapeId];
+    }
+
+    /**
+     * Returns the line art for an asteroid shape, for the RasterRenderer.
+     * @param size The asteroid size (one of the Asteroid.Size constants).
+     * @param shapeId The shape id, less than SHAPES_PER_SIZE.
+     * @return The outline.
+     */
+    public Outline getOutline(int size, int shapeId) {
+        return outlines[size][shapeId];
+    }
+
+    /**
+     * @return The shared image all asteroid sprites are drawn from.
+     */
+    public BufferedImage getImage() {
+        return atlas;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+
+    /**
+     * Asteroids are ten pixels per unit of size, plus one so the outline
+     * isn't clipped. TINY is a line from (0,0) to (1,1), so it needs two.
+     */
+    private static int cellSize(int size) {
+        return Math.max(size * 10, 1) + 1;
+    }
+
+    private static int atlasHeight() {
+        int height = 0;
+        for (int size = 0; size <= MAX_SIZE; size++) {
+            height += cellSize(size);
+        }
+        return height;
+    }
+
+    private static Polygon createPolygon(int size, Random random) {
+        Polygon poly = new Polygon();
+        if (size == Asteroid.Size.TINY) {
+            poly.addPoint(0, 0);
+            poly.addPoint(1, 1);
+            return poly;
+        }
+
+        int width = size * 10;
+        int height = size * 10;
+        double r1 = random.nextDouble();
+        double r2 = random.nextDouble();
+        poly.addPoint( 1,                           (int) ( height * 0.5 * r1 ) );
+        poly.addPoint( (int) (  width * 0.3 * r1 ), 1                           );
+        poly.addPoint( (int) (  width * 0.6  ),     (int) ( height * 0.1 * r2 ) );
+        poly.addPoint( width,                       (int) ( height * 0.3  )     );
+        poly.addPoint( (int) (  width * 0.7  ),     (int) ( height * 0.9  )     );
+        poly.addPoint( (int) (  width * 0.3 * r2 ), height                      );
+        return poly;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final long SEED = 0x5EEDL;
+    private static AsteroidAtlas instance;
+    private final BufferedImage atlas;
+    private final Polygon[][] shapes;
+    private final Sprite[][] sprites;
+    private final Outline[][] outlines;
+    // </editor-fold>
+}
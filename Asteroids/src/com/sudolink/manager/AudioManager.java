@@ -19,6 +19,7 @@
 package com.sudolink.manager;
 
 import com.sudolink.entities.Asteroid;
+import com.sudolink.events.AudioClipEvent;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,6 +41,7 @@ public class AudioManager {
 
     private static AudioManager instance;
     private final Map<String, Clip> clips;
+    private boolean enabled = true;
 
     private AudioManager() {
         clips = new HashMap<>();
@@ -52,12 +54,29 @@ public class AudioManager {
         return instance;
     }
 
+    /**
+     * Turns sound on or off. While off no clips are loaded, so no sound device
+     * is opened, and playing a clip that wasn't loaded does nothing. Set
+     * before preparing any clips.
+     * @param enabled False to run without sound.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
     /**
      * Loads an audio clip from a media file, stores the clip in memory.
      * @param key A unique string that represents the media file.
      * @param mediaFile The filename for the media file.
      */
     public void prepareAudioClip(String key, String mediaFile) {
+        if (!enabled) {
+            return;
+        }
         try {
             
             AudioInputStream stream = AudioSystem.getAudioInputStream(getClass().getResource(mediaFile));
@@ -80,7 +99,7 @@ public class AudioManager {
      * this method is called.
      * 
      * @param key The key name for the media clip.
-     * @return The clip.
+     * @return The clip, or null if it wasn't loaded.
      */
     public Clip getClip(String key) {
         return clips.get(key);
@@ -91,9 +110,15 @@ public class AudioManager {
      * @param key The key name for the media clip.
      */
     public void playClip(String key) {
+        AudioClipEvent event = new AudioClipEvent();
+        event.begin();
         Clip c = clips.get(key);
-        c.setFramePosition(0);
-        c.start();
+        if (c != null) {
+            c.setFramePosition(0);
+            c.start();
+        }
+        event.clip = key;
+        event.commit();
     }
 
     /**
@@ -103,8 +128,10 @@ public class AudioManager {
      */
     public void loopClip(String key, int count) {
         Clip c = clips.get(key);
-        c.setFramePosition(0);
-        c.loop(count);
+        if (c != null) {
+            c.setFramePosition(0);
+            c.loop(count);
+        }
     }
     
     /**
@@ -113,7 +140,9 @@ public class AudioManager {
      */
     public void stopClip( String key ) {
         Clip c = clips.get(key);
-        c.stop();
+        if (c != null) {
+            c.stop();
+        }
     }
     
     /**
@@ -122,6 +151,8 @@ public class AudioManager {
      */
     public void removeClip( String key ) {
         Clip c = clips.remove(key);
-        c.stop();
+        if (c != null) {
+            c.stop();
+        }
     }
 }
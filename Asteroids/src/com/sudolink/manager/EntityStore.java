@@ -0,0 +1,470 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.enumeration.EntityState;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Holds the kinematic state of every game object in packed primitive columns,
+ * indexed by entity id. GameObject is a view over one row of this store.
+ *
+ * Keeping the columns together means the movement of every body in the game
+ * can be integrated in one tight loop (see integrate()), rather than through
+ * each object's update() method.
+ *
+ * The position and rotation from before the last tick are kept as well, so
+ * frames drawn between ticks can interpolate (see FrameSnapshot).
+ *
+ * @author Matthew MacGregor
+ */
+public class EntityStore {
+
+    /** The row is part of the game and should be integrated. */
+    public static final int FLAG_LIVE = 1;
+    /** The body wraps to the opposite side of the screen. */
+    public static final int FLAG_WRAP = 1 << 1;
+    /** The turn rate spins the body without changing its direction. */
+    public static final int FLAG_SPIN = 1 << 2;
+    /** The turn rate steers the body: rotation and direction move together. */
+    public static final int FLAG_STEER = 1 << 3;
+
+    private static final EntityState[] STATES = EntityState.values();
+    private static final int ACTIVE = EntityState.Active.ordinal();
+    private static final int IMPERVIOUS = EntityState.Impervious.ordinal();
+
+    public EntityStore(int initialCapacity) {
+        capacity = Math.max(16, initialCapacity);
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        prevRotation = new float[capacity];
+        direction = new float[capacity];
+        speed = new float[capacity];
+        speedMax = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+        turnRate = new float[capacity];
+        turnRateMax = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+        boundsScaleX = new float[capacity];
+        boundsScaleY = new float[capacity];
+        minX = new float[capacity];
+        minY = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        state = new int[capacity];
+        flags = new int[capacity];
+        freeIds = new int[capacity];
+    }
+
+    /**
+     * Reserves a row for a new entity and fills it with the defaults of a
+     * freshly constructed GameObject.
+     * @return The id of the row.
+     */
+    public int allocate() {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (count == capacity) {
+                grow();
+            }
+            id = count++;
+        }
+        reset(id);
+        return id;
+    }
+
+    /**
+     * Returns a row to the store. The id must not be used afterwards.
+     * @param id The id of the row.
+     */
+    public void free(int id) {
+        flags[id] = 0;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Restores the defaults for a row. The live flag is left untouched.
+     * @param id The id of the row.
+     */
+    public void reset(int id) {
+        x[id] = 0;
+        y[id] = 0;
+        prevX[id] = 0;
+        prevY[id] = 0;
+        prevRotation[id] = 0;
+        direction[id] = 0;
+        speed[id] = 0;
+        speedMax[id] = 3;
+        velocityX[id] = 0;
+        velocityY[id] = 0;
+        rotation[id] = 0;
+        turnRate[id] = 0;
+        turnRateMax[id] = 3;
+        width[id] = 10;
+        height[id] = 10;
+        boundsScaleX[id] = 1;
+        boundsScaleY[id] = 1;
+        state[id] = ACTIVE;
+        flags[id] = FLAG_WRAP | (flags[id] & FLAG_LIVE);
+        updateBounds(id);
+    }
+
+    /**
+     * Writes a row for a saved game: 14 floats, then the state and the
+     * flags as one byte each. The previous position isn't written, as the
+     * next tick replaces it, and nor are the bounds, which follow from the
+     * rest. The live flag belongs to GameObjectsManager and is left out.
+     * @param id The id of the row.
+     * @param buffer The buffer to write to.
+     */
+    public void save(int id, ByteBuffer buffer) {
+        buffer.putFloat(x[id]);
+        buffer.putFloat(y[id]);
+        buffer.putFloat(direction[id]);
+        buffer.putFloat(speed[id]);
+        buffer.putFloat(speedMax[id]);
+        buffer.putFloat(velocityX[id]);
+        buffer.putFloat(velocityY[id]);
+        buffer.putFloat(rotation[id]);
+        buffer.putFloat(turnRate[id]);
+        buffer.putFloat(turnRateMax[id]);
+        buffer.putFloat(width[id]);
+        buffer.putFloat(height[id]);
+        buffer.putFloat(boundsScaleX[id]);
+        buffer.putFloat(boundsScaleY[id]);
+        buffer.put((byte) state[id]);
+        buffer.put((byte) (flags[id] & ~FLAG_LIVE));
+    }
+
+    /**
+     * Reads a row written by save(). The body is placed without any
+     * interpolation, and the live flag is left untouched.
+     * @param id The id of the row.
+     * @param buffer The buffer to read from.
+     */
+    public void load(int id, ByteBuffer buffer) {
+        x[id] = prevX[id] = buffer.getFloat();
+        y[id] = prevY[id] = buffer.getFloat();
+        direction[id] = buffer.getFloat();
+        speed[id] = buffer.getFloat();
+        speedMax[id] = buffer.getFloat();
+        velocityX[id] = buffer.getFloat();
+        velocityY[id] = buffer.getFloat();
+        rotation[id] = prevRotation[id] = buffer.getFloat();
+        turnRate[id] = buffer.getFloat();
+        turnRateMax[id] = buffer.getFloat();
+        width[id] = buffer.getFloat();
+        height[id] = buffer.getFloat();
+        boundsScaleX[id] = buffer.getFloat();
+        boundsScaleY[id] = buffer.getFloat();
+        state[id] = buffer.get();
+        flags[id] = buffer.get() | (flags[id] & FLAG_LIVE);
+        updateBounds(id);
+    }
+
+    /**
+     * Moves every live body that is Active or Impervious by one tick: screen
+     * wrap, then turning, then travel along its direction. Travel uses the
+     * cached velocity, so trigonometry only happens for bodies that actually
+     * changed direction this tick.
+     *
+     * Before anything moves, the current position and rotation of every row
+     * are saved as the previous state for interpolation. Bodies that wrap
+     * jump straight to the far side instead of sliding across the screen.
+     *
+     * @param screenWidth The width of the play area.
+     * @param screenHeight The height of the play area.
+     */
+    public void integrate(int screenWidth, int screenHeight) {
+        final float[] px = x;
+        final float[] py = y;
+        final float[] dir = direction;
+        final float[] rot = rotation;
+
+        System.arraycopy(px, 0, prevX, 0, count);
+        System.arraycopy(py, 0, prevY, 0, count);
+        System.arraycopy(rot, 0, prevRotation, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            int f = flags[i];
+            int s = state[i];
+            if ((f & FLAG_LIVE) == 0 || (s != ACTIVE && s != IMPERVIOUS)) {
+                continue;
+            }
+
+            if ((f & FLAG_WRAP) != 0 && wrap(i, screenWidth, screenHeight)) {
+                prevX[i] = px[i];
+                prevY[i] = py[i];
+            }
+
+            if ((f & FLAG_SPIN) != 0) {
+                rot[i] += clampedTurnRate(i);
+            } else if ((f & FLAG_STEER) != 0) {
+                float heading = normalize(dir[i] + clampedTurnRate(i));
+                rot[i] = heading;
+                if (heading != dir[i]) {
+                    dir[i] = heading;
+                    updateVelocity(i);
+                }
+            }
+
+            px[i] += velocityX[i];
+            py[i] += velocityY[i];
+            updateBounds(i);
+        }
+    }
+
+    /**
+     * Tests whether the bounds of two rows overlap. Like
+     * java.awt.Rectangle.intersects(), empty bounds never intersect anything.
+     *
+     * @param a The id of the first row.
+     * @param b The id of the second row.
+     * @return True if the bounds overlap.
+     */
+    public boolean intersects(int a, int b) {
+        return minX[a] < maxX[a] && minY[a] < maxY[a]
+                && minX[b] < maxX[b] && minY[b] < maxY[b]
+                && minX[a] < maxX[b] && minX[b] < maxX[a]
+                && minY[a] < maxY[b] && minY[b] < maxY[a];
+    }
+
+    /**
+     * The turn rate is clamped to the maximum the first time it is read, to
+     * match GameObject.getTurnRate().
+     * @param id The id of the row.
+     * @return The clamped turn rate.
+     */
+    public float clampedTurnRate(int id) {
+        if (turnRate[id] > turnRateMax[id]) {
+            turnRate[id] = turnRateMax[id];
+        }
+        return turnRate[id];
+    }
+
+    /**
+     * Wraps an angle that has gone just past 0 or 360 degrees.
+     * @param degrees The angle.
+     * @return The angle, brought back toward the 0-360 range.
+     */
+    public static float normalize(float degrees) {
+        if (degrees > 360) {
+            degrees -= 360;
+        } else if (degrees < 0) {
+            degrees += 360;
+        }
+        return degrees;
+    }
+
+    /**
+     * @return The number of rows in use, including freed ones.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The number of rows currently allocated to entities.
+     */
+    public int getLiveCount() {
+        return count - freeCount;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Column Accessors">
+    public float getX(int id) { return x[id]; }
+    // Setting a position or rotation directly is a jump, not movement, so the
+    // previous state is snapped to it rather than interpolated.
+    public void setX(int id, float value) { x[id] = prevX[id] = value; updateBounds(id); }
+    public float getY(int id) { return y[id]; }
+    public float getPreviousX(int id) { return prevX[id]; }
+    public float getPreviousY(int id) { return prevY[id]; }
+    public float getPreviousRotation(int id) { return prevRotation[id]; }
+    public void setY(int id, float value) { y[id] = prevY[id] = value; updateBounds(id); }
+    public float getDirection(int id) { return direction[id]; }
+    public void setDirection(int id, float value) {
+        if (direction[id] != value) {
+            direction[id] = value;
+            updateVelocity(id);
+        }
+    }
+    public float getSpeed(int id) { return speed[id]; }
+    public void setSpeed(int id, float value) {
+        if (speed[id] != value) {
+            speed[id] = value;
+            updateVelocity(id);
+        }
+    }
+    public float getVelocityX(int id) { return velocityX[id]; }
+    public float getVelocityY(int id) { return velocityY[id]; }
+    public float getSpeedMax(int id) { return speedMax[id]; }
+    public void setSpeedMax(int id, float value) { speedMax[id] = value; }
+    public float getRotation(int id) { return rotation[id]; }
+    public void setRotation(int id, float value) { rotation[id] = prevRotation[id] = value; }
+    public void addRotation(int id, float value) { rotation[id] += value; }
+    public float getTurnRate(int id) { return turnRate[id]; }
+    public void setTurnRate(int id, float value) { turnRate[id] = value; }
+    public float getTurnRateMax(int id) { return turnRateMax[id]; }
+    public void setTurnRateMax(int id, float value) { turnRateMax[id] = value; }
+    public float getWidth(int id) { return width[id]; }
+    public void setWidth(int id, float value) { width[id] = value; updateBounds(id); }
+    public float getHeight(int id) { return height[id]; }
+    public void setHeight(int id, float value) { height[id] = value; updateBounds(id); }
+    public float getMinX(int id) { return minX[id]; }
+    public float getMinY(int id) { return minY[id]; }
+    public float getMaxX(int id) { return maxX[id]; }
+    public float getMaxY(int id) { return maxY[id]; }
+
+    /**
+     * Scales the collision bounds relative to the width and height of a row,
+     * for objects whose bounds don't match their sprite.
+     * @param id The id of the row.
+     * @param scaleX Horizontal scale.
+     * @param scaleY Vertical scale.
+     */
+    public void setBoundsScale(int id, float scaleX, float scaleY) {
+        boundsScaleX[id] = scaleX;
+        boundsScaleY[id] = scaleY;
+        updateBounds(id);
+    }
+    public EntityState getState(int id) { return STATES[state[id]]; }
+    public void setState(int id, EntityState value) { state[id] = value.ordinal(); }
+
+    public boolean hasFlag(int id, int flag) {
+        return (flags[id] & flag) != 0;
+    }
+
+    public void setFlag(int id, int flag, boolean enabled) {
+        if (enabled) {
+            flags[id] |= flag;
+        } else {
+            flags[id] &= ~flag;
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    /**
+     * Directions are in degrees with 0 pointing up the screen, hence the
+     * quarter turn.
+     */
+    private void updateVelocity(int i) {
+        double radians = Math.toRadians(direction[i] - 90);
+        velocityX[i] = (float) Math.cos(radians) * speed[i];
+        velocityY[i] = (float) Math.sin(radians) * speed[i];
+    }
+
+    private void updateBounds(int i) {
+        minX[i] = x[i];
+        minY[i] = y[i];
+        maxX[i] = x[i] + width[i] * boundsScaleX[i];
+        maxY[i] = y[i] + height[i] * boundsScaleY[i];
+    }
+
+    /**
+     * @return True if the body was moved to the other side of the screen.
+     */
+    private boolean wrap(int i, int screenWidth, int screenHeight) {
+        float d = direction[i];
+        if (x[i] < -10 && d > 180) {
+            x[i] += screenWidth;
+            y[i] = screenHeight - y[i];
+        } else if (x[i] > screenWidth && d <= 180) {
+            x[i] -= screenWidth;
+            y[i] = screenHeight - y[i];
+        } else if (y[i] > screenHeight && (d >= 90 && d <= 270)) {
+            y[i] -= screenHeight;
+            x[i] = screenWidth - x[i];
+        } else if (y[i] < -10 && (d > 270 || d < 90)) {
+            y[i] += screenHeight;
+            x[i] = screenWidth - x[i];
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        prevRotation = Arrays.copyOf(prevRotation, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        speedMax = Arrays.copyOf(speedMax, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        turnRate = Arrays.copyOf(turnRate, capacity);
+        turnRateMax = Arrays.copyOf(turnRateMax, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        boundsScaleX = Arrays.copyOf(boundsScaleX, capacity);
+        boundsScaleY = Arrays.copyOf(boundsScaleY, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        state = Arrays.copyOf(state, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private int capacity;
+    private int count;
+    private int[] freeIds;
+    private int freeCount;
+    private float[] x;
+    private float[] y;
+    private float[] prevX;
+    private float[] prevY;
+    private float[] prevRotation;
+    private float[] direction;
+    private float[] speed;
+    private float[] speedMax;
+    private float[] velocityX;
+    private float[] velocityY;
+    private float[] rotation;
+    private float[] turnRate;
+    private float[] turnRateMax;
+    private float[] width;
+    private float[] height;
+    private float[] boundsScaleX;
+    private float[] boundsScaleY;
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private int[] state;
+    private int[] flags;
+    // </editor-fold>
+}
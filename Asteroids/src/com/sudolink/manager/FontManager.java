@@ -21,8 +21,8 @@ package com.sudolink.manager;
 import java.awt.Font;
 import java.awt.FontFormatException;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,7 +34,7 @@ public class FontManager {
 
     // Singleton pattern
     private FontManager() {
-        fonts = new HashMap<>();
+        fonts = new ConcurrentHashMap<>();
     }
 
     public static synchronized FontManager getInstance() {
@@ -47,19 +47,24 @@ public class FontManager {
 
     /**
      * This method inserts and loads a font, using the given fontname and filename
-     * for the font file. Always prepare fonts before use.
+     * for the font file. Always prepare fonts before use. A font that is
+     * already prepared is not loaded again, and fonts may be prepared and
+     * fetched from any thread.
      * 
      * @param fontname The unique key for the font.
      * @param filename The filename used to load the font.
      */
     public void prepareFont(String fontname, String filename) {
+        if (fonts.containsKey(fontname)) {
+            return;
+        }
         Font font;
         try {
             font = Font.createFont(
                     Font.TRUETYPE_FONT,
                     getClass().getResourceAsStream(filename)
             );
-            fonts.put(fontname, font);
+            fonts.putIfAbsent(fontname, font);
         } catch (FontFormatException | IOException ex) {
             Logger.getLogger(FontManager.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -77,12 +82,17 @@ public class FontManager {
      */
     public Font getFont(String fontname, float size) {
         String font_plus_size = fontname + (int) size;
-        if (!fonts.containsKey(font_plus_size)) {
-            fonts.put(font_plus_size, fonts.get(fontname).deriveFont(size));
+        Font font = fonts.get(font_plus_size);
+        if (font == null) {
+            font = fonts.get(fontname).deriveFont(size);
+            Font raced = fonts.putIfAbsent(font_plus_size, font);
+            if (raced != null) {
+                font = raced;
+            }
         }
-        return fonts.get(font_plus_size);
+        return font;
     }
     
     private static FontManager instance;
-    private final Map<String, Font> fonts;
+    private final ConcurrentMap<String, Font> fonts;
 }
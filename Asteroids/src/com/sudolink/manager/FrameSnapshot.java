@@ -0,0 +1,318 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.Asteroid;
+import com.sudolink.entities.Bullet;
+import com.sudolink.entities.GameObject;
+import com.sudolink.entities.Outline;
+import com.sudolink.entities.Ship;
+import com.sudolink.entities.Sprite;
+import com.sudolink.entities.StickParticle;
+import com.sudolink.enumeration.EntityState;
+import static com.sudolink.enumeration.EntityState.Active;
+import static com.sudolink.enumeration.Team.Neutral;
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw one tick of the game, copied out of the game
+ * objects so the render thread never touches live game state. For each
+ * visible object, in draw order, it holds the position and rotation before
+ * and after the tick, the size, the state, and the (immutable) sprite and
+ * outline. For the debug overlay it also holds each object's collision
+ * bounds, and a count of every object in the game by kind and state.
+ *
+ * The arrays are reused from tick to tick, so taking a snapshot doesn't
+ * allocate once they have grown to fit the scene.
+ *
+ * @author Matthew MacGregor
+ */
+public class FrameSnapshot {
+
+    public static final int KIND_SHIP = 0;
+    public static final int KIND_ASTEROID = 1;
+    public static final int KIND_BULLET = 2;
+    public static final int KIND_PARTICLE = 3;
+    public static final int KIND_OTHER = 4;
+    public static final int KIND_COUNT = 5;
+
+    /** Set for objects that are in the collision broadphase. */
+    public static final int FLAG_COLLIDABLE = 1;
+
+    public FrameSnapshot() {
+        capacity = 256;
+        sprites = new Sprite[capacity];
+        outlines = new Outline[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        prevRotation = new float[capacity];
+        rotation = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+        state = new int[capacity];
+        boundsWidth = new float[capacity];
+        boundsHeight = new float[capacity];
+        flags = new int[capacity];
+        counts = new int[KIND_COUNT * STATE_COUNT];
+    }
+
+    /**
+     * Empties the snapshot, ready for the next tick.
+     */
+    public void clear() {
+        // Drop references so recycled sprites can be collected
+        Arrays.fill(sprites, 0, count, null);
+        Arrays.fill(outlines, 0, count, null);
+        Arrays.fill(counts, 0);
+        count = 0;
+        collisionPairs = 0;
+    }
+
+    /**
+     * Copies the drawable state of an object into the snapshot. Objects with
+     * neither a sprite nor an outline are skipped. Must be called from the
+     * simulation thread.
+     * @param o The object.
+     */
+    public void add(GameObject o) {
+        Sprite sprite = o.getSprite();
+        Outline outline = o.getOutline();
+        if (sprite == null && outline == null) {
+            return;
+        }
+        if (count == capacity) {
+            grow();
+        }
+        int i = count++;
+        sprites[i] = sprite;
+        outlines[i] = outline;
+        prevX[i] = o.getPreviousX();
+        prevY[i] = o.getPreviousY();
+        x[i] = o.getX();
+        y[i] = o.getY();
+        prevRotation[i] = o.getPreviousRotation();
+        rotation[i] = o.getRotation();
+        width[i] = o.getWidth();
+        height[i] = o.getHeight();
+        state[i] = o.getState().ordinal();
+        boundsWidth[i] = o.getMaxX() - o.getMinX();
+        boundsHeight[i] = o.getMaxY() - o.getMinY();
+        flags[i] = o.getState() == Active && o.getTeam() != Neutral ? FLAG_COLLIDABLE : 0;
+    }
+
+    /**
+     * Counts an object by kind and state. Every object in the game is
+     * counted, whether or not it is drawn.
+     * @param o The object.
+     */
+    public void count(GameObject o) {
+        counts[kindOf(o) * STATE_COUNT + o.getState().ordinal()]++;
+    }
+
+    /**
+     * @param kind One of the KIND_ constants.
+     * @param state An EntityState ordinal.
+     * @return How many objects of that kind were in that state.
+     */
+    public int getCount(int kind, int state) {
+        return counts[kind * STATE_COUNT + state];
+    }
+
+    /**
+     * @return The number of objects in the snapshot.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Works out how far between the previous tick and this one a frame drawn
+     * now should be.
+     * @param now The current System.nanoTime().
+     * @param tickNanos The length of a tick.
+     * @return The interpolation factor, from 0 to 1.
+     */
+    public float getInterpolation(long now, long tickNanos) {
+        float alpha = (float) (now - tickTime) / tickNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    public Sprite getSprite(int i) {
+        return sprites[i];
+    }
+
+    public Outline getOutline(int i) {
+        return outlines[i];
+    }
+
+    /**
+     * @param i The index of the object.
+     * @param alpha The interpolation factor.
+     * @return The horizontal position to draw the object at.
+     */
+    public float getX(int i, float alpha) {
+        return prevX[i] + (x[i] - prevX[i]) * alpha;
+    }
+
+    /**
+     * @param i The index of the object.
+     * @param alpha The interpolation factor.
+     * @return The vertical position to draw the object at.
+     */
+    public float getY(int i, float alpha) {
+        return prevY[i] + (y[i] - prevY[i]) * alpha;
+    }
+
+    /**
+     * Interpolates the rotation the short way round, so a body turning past
+     * 0 degrees doesn't spin backwards for a frame.
+     * @param i The index of the object.
+     * @param alpha The interpolation factor.
+     * @return The rotation to draw the object with.
+     */
+    public float getRotation(int i, float alpha) {
+        float delta = rotation[i] - prevRotation[i];
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return rotation[i] - delta * (1 - alpha);
+    }
+
+    public float getWidth(int i) {
+        return width[i];
+    }
+
+    public float getHeight(int i) {
+        return height[i];
+    }
+
+    /**
+     * @param i The index of the object.
+     * @return The EntityState ordinal of the object.
+     */
+    public int getState(int i) {
+        return state[i];
+    }
+
+    /**
+     * @param i The index of the object.
+     * @return The width of the object's collision bounds.
+     */
+    public float getBoundsWidth(int i) {
+        return boundsWidth[i];
+    }
+
+    /**
+     * @param i The index of the object.
+     * @return The height of the object's collision bounds.
+     */
+    public float getBoundsHeight(int i) {
+        return boundsHeight[i];
+    }
+
+    /**
+     * @param i The index of the object.
+     * @return The FLAG_ bits of the object.
+     */
+    public int getFlags(int i) {
+        return flags[i];
+    }
+
+    /**
+     * @return The number of pairs tested by the last collision pass.
+     */
+    public int getCollisionPairs() {
+        return collisionPairs;
+    }
+
+    public void setCollisionPairs(int collisionPairs) {
+        this.collisionPairs = collisionPairs;
+    }
+
+    /**
+     * @return The System.nanoTime() the tick was due at.
+     */
+    public long getTickTime() {
+        return tickTime;
+    }
+
+    public void setTickTime(long tickTime) {
+        this.tickTime = tickTime;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private static int kindOf(GameObject o) {
+        if (o instanceof Asteroid) {
+            return KIND_ASTEROID;
+        } else if (o instanceof Bullet) {
+            return KIND_BULLET;
+        } else if (o instanceof StickParticle) {
+            return KIND_PARTICLE;
+        } else if (o instanceof Ship) {
+            return KIND_SHIP;
+        }
+        return KIND_OTHER;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        sprites = Arrays.copyOf(sprites, capacity);
+        outlines = Arrays.copyOf(outlines, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevRotation = Arrays.copyOf(prevRotation, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        state = Arrays.copyOf(state, capacity);
+        boundsWidth = Arrays.copyOf(boundsWidth, capacity);
+        boundsHeight = Arrays.copyOf(boundsHeight, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private int capacity;
+    private int count;
+    private long tickTime;
+    private Sprite[] sprites;
+    private Outline[] outlines;
+    private float[] prevX;
+    private float[] prevY;
+    private float[] x;
+    private float[] y;
+    private float[] prevRotation;
+    private float[] rotation;
+    private float[] width;
+    private float[] height;
+    private int[] state;
+    private float[] boundsWidth;
+    private float[] boundsHeight;
+    private int[] flags;
+    private final int[] counts;
+    private int collisionPairs;
+    private static final int STATE_COUNT = EntityState.values().length;
+    // </editor-fold>
+}
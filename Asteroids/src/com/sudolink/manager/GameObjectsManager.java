@@ -22,91 +22,257 @@ import com.sudolink.entities.Asteroid;
 import com.sudolink.entities.Bullet;
 import com.sudolink.entities.GameObject;
 import com.sudolink.entities.Ship;
+import com.sudolink.entities.StickParticle;
 import static com.sudolink.enumeration.EntityState.Active;
 import static com.sudolink.enumeration.EntityState.Killed;
-import com.sudolink.game.GameTimer;
-import java.util.ArrayList;
+import com.sudolink.enumeration.Phase;
+import com.sudolink.events.CleanupEvent;
+import com.sudolink.events.CollisionPassEvent;
+import static com.sudolink.enumeration.Team.Neutral;
+import com.sudolink.game.GameSession;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 
 /**
- * This class handles all of the in-game entities. 
+ * This class handles all of the in-game entities of one GameSession.
  * 
  * @author Matthew MacGregor
  */
 public class GameObjectsManager {
-    
-    // Singleton
-    private GameObjectsManager() {
-        gameObjects = new ArrayList<>();
-        gameObjectQueue = new ArrayList<>();
-        zcomp = new ZOrderComparator();
-        
-        gcTimer = new GameTimer(150) {
+
+    /** Size of a broadphase cell, roughly the size of a large asteroid. */
+    public static final int BROADPHASE_CELL_SIZE = 48;
+
+    /**
+     * @param session The session whose world this is. Only its size is read
+     * here; objects created by the pools are given to it.
+     */
+    public GameObjectsManager(final GameSession session) {
+        this.session = session;
+        gameObjects = new ZLayers();
+        gameObjectQueue = new SpawnQueue();
+        broadphase = new SpatialHash(BROADPHASE_CELL_SIZE);
+        entityStore = new EntityStore(1024);
+        snapshots = new SnapshotBuffer();
+
+        bulletPool = new ObjectPool<Bullet>("Bullet") {
             @Override
-            public void action() {
-                cleanup();
+            protected Bullet create() {
+                return new Bullet(session);
+            }
+        };
+        asteroidPool = new ObjectPool<Asteroid>("Asteroid") {
+            @Override
+            protected Asteroid create() {
+                return new Asteroid(session);
+            }
+        };
+        particlePool = new ObjectPool<StickParticle>("StickParticle") {
+            @Override
+            protected StickParticle create() {
+                return new StickParticle(session);
             }
-
         };
         
     }
    
-    public static synchronized GameObjectsManager getInstance() {
-        if ( instance == null ) {
-            instance = new GameObjectsManager();
-        }
-        
-        return instance;
-    }
-    
     /**
      * Called on each iteration of the game loop.
      */
     public void update() {
         
         asteroidCount = 0;
-        gcTimer.tick();
-        
-        for (GameObject o : gameObjects) {
-            if( o instanceof Asteroid && o.getState() == Active) { asteroidCount++; }
-            switch (o.getState()) {
-                
-                // This is the normal state of an object.
-                case Active:
-                    o.update();
-                    checkCollisions(o);
-                    break;
-                    
-                // Impervious objects update but don't collide.
-                case Impervious:
-                    o.update();
-                    break;
-                
-                // Dead or passive objects do nothing
-                case Killed:
-                case Passive:
-                default:
-                        
-            }
+
+        // Move everything in one pass over the entity store, then let each
+        // object run its own behavior.
+        entityStore.integrate(session.getWidth(), session.getHeight());
+
+        CleanupEvent cleanup = new CleanupEvent();
+        cleanup.begin();
+        int before = gameObjects.size();
+        for (int l = 0; l < gameObjects.getLayerCount(); l++) {
+            updateLayer(gameObjects.getLayer(l));
         }
-        
+        cleanup.remaining = gameObjects.size();
+        cleanup.removed = before - cleanup.remaining;
+        cleanup.commit();
+
+        // Collisions are resolved once everything has moved for this tick.
+        long start = System.nanoTime();
+        checkCollisions();
+        PerformanceMonitor.getInstance().record(Phase.Collisions, start);
+
         // At the end of each iteration, insert any queued objects.
         emptyGameObjectQueue();
+        entityCount = gameObjects.size();
     }
     
+    /**
+     * Copies what is needed to draw the current tick into a snapshot and
+     * hands it to the renderer. Called by the simulation thread after
+     * update().
+     * @param tickTime The System.nanoTime() the tick was due at, used by the
+     * renderer to interpolate.
+     */
+    public void publishSnapshot(long tickTime) {
+        FrameSnapshot frame = snapshots.getBack();
+        frame.clear();
+        frame.setTickTime(tickTime);
+        for (int l = 0; l < gameObjects.getLayerCount(); l++) {
+            List<GameObject> layer = gameObjects.getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                GameObject o = layer.get(i);
+                frame.count(o);
+                switch (o.getState()) {
+                    // Only draw active objects
+                    case Active:
+                    case Impervious:
+                    case Ghost:
+                        frame.add(o);
+                        break;
+
+                    // Ignore these objects
+                    case Passive:
+                    case Killed:
+                    default:
+                }
+            }
+        }
+        frame.setCollisionPairs(collisionPairs);
+        snapshots.publish();
+    }
+
+    /**
+     * @return The snapshots shared with the renderer.
+     */
+    public SnapshotBuffer getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Adds an object to the game. Safe to call from any thread; the object
+     * is queued and inserted at the end of the next update.
+     * @param o The object.
+     */
     public void add(GameObject o) {
-        // Adding new objects adds them first to the queue. They will be inserted
-        // into the primary arraylist at the end of an update.
-        this.gameObjectQueue.add(o);
+        this.gameObjectQueue.push(o);
     }
     
+    /**
+     * Puts an object straight into the game, as if it had been added before
+     * the last tick. Used to load a saved game; anything else should add().
+     * @param o The object.
+     */
+    public void insert(GameObject o) {
+        o.setLive(true);
+        gameObjects.insert(o);
+    }
+
+    /**
+     * @return The object added most recently that is still waiting to enter
+     * the game, linked through getSpawnNext() to the ones added before it,
+     * or null if none are waiting.
+     */
+    public GameObject getQueued() {
+        return gameObjectQueue.peek();
+    }
+
+    /**
+     * Takes every object out of the game, along with any waiting to be
+     * added. Retained objects are left to their owners, and the rest are
+     * recycled. Used to load a saved game.
+     */
+    public void clear() {
+        for (int l = 0; l < gameObjects.getLayerCount(); l++) {
+            List<GameObject> layer = gameObjects.getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                discard(layer.get(i));
+            }
+            layer.clear();
+        }
+        GameObject o = gameObjectQueue.drain();
+        while (o != null) {
+            GameObject next = o.getSpawnNext();
+            o.setSpawnNext(null);
+            discard(o);
+            o = next;
+        }
+    }
+
+    /**
+     * @return Every object in the game, in draw (z) order.
+     */
     public List<GameObject> get() {
         return Collections.unmodifiableList(gameObjects);
     }
+
+    /**
+     * @return The objects in the game bucketed by z-index, for callers that
+     * want to walk them without going through the flattened list.
+     */
+    public ZLayers getLayers() {
+        return gameObjects;
+    }
+    
+    /**
+     * @return The store holding the kinematic state of every game object.
+     */
+    public EntityStore getEntityStore() {
+        return entityStore;
+    }
+
+    /**
+     * @return The pool of bullets fired by the ship.
+     */
+    public ObjectPool<Bullet> getBulletPool() {
+        return bulletPool;
+    }
+
+    /**
+     * @return The pool of asteroids, including the TINY debris.
+     */
+    public ObjectPool<Asteroid> getAsteroidPool() {
+        return asteroidPool;
+    }
+
+    /**
+     * @return The pool of particles thrown out by the ship's explosion.
+     */
+    public ObjectPool<StickParticle> getParticlePool() {
+        return particlePool;
+    }
     
+    /**
+     * Hashes the position, motion and state of every object in the game, so
+     * that two runs of a session can be checked against each other cheaply.
+     * Objects still waiting to be added are not included.
+     * @return The hash.
+     */
+    public long hashState() {
+        long hash = gameObjects.size();
+        for (int l = 0; l < gameObjects.getLayerCount(); l++) {
+            List<GameObject> layer = gameObjects.getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                GameObject o = layer.get(i);
+                hash = hash * 31 + Float.floatToIntBits(o.getX());
+                hash = hash * 31 + Float.floatToIntBits(o.getY());
+                hash = hash * 31 + Float.floatToIntBits(o.getRotation());
+                hash = hash * 31 + Float.floatToIntBits(o.getDirection());
+                hash = hash * 31 + Float.floatToIntBits(o.getSpeed());
+                hash = hash * 31 + o.getState().ordinal();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return The number of objects as of the end of the last update(). Safe
+     * to read from any thread.
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
     /**
      * @return the asteroidCount
      */
@@ -116,69 +282,130 @@ public class GameObjectsManager {
     }
     
     // <editor-fold defaultstate="collapsed" desc="Private Methods">
-    private void checkCollisions(GameObject o1) {
+    private void updateLayer(List<GameObject> layer) {
+        // Dead objects are dropped in the same pass. Survivors are shifted
+        // down over the gaps, which keeps them in insertion order.
+        int size = layer.size();
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            GameObject o = layer.get(read);
+            switch (o.getState()) {
+
+                // This is the normal state of an object. Impervious objects
+                // update too, but they are skipped by checkCollisions().
+                case Active:
+                case Impervious:
+                    o.update();
+                    break;
+
+                // Dead or passive objects do nothing
+                case Killed:
+                case Passive:
+                default:
+
+            }
+
+            if (o.getState() == Killed) {
+                remove(o);
+                continue;
+            }
+            if( o instanceof Asteroid && o.getState() == Active) { asteroidCount++; }
+            if (write != read) {
+                layer.set(write, o);
+            }
+            write++;
+        }
+        if (write < size) {
+            layer.subList(write, size).clear();
+        }
+    }
+
+    private void checkCollisions() {
+        CollisionPassEvent event = new CollisionPassEvent();
+        event.begin();
+
+        // Rebuild the broadphase. Neutral objects (text and the ship's
+        // explosion particles) never collide, so they are left out of the grid.
+        broadphase.clear();
+        int layerCount = gameObjects.getLayerCount();
+        for (int l = 0; l < layerCount; l++) {
+            List<GameObject> layer = gameObjects.getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                GameObject o = layer.get(i);
+                if (o.getState() == Active && o.getTeam() != Neutral) {
+                    broadphase.insert(o);
+                    event.objects++;
+                }
+            }
+        }
+
         //Only certain types matter for collisions
-        if (o1 instanceof Ship || o1 instanceof Bullet) {
-            for (GameObject o2 : gameObjects) {
-                o1.collide(o2);
+        for (int l = 0; l < layerCount; l++) {
+            List<GameObject> layer = gameObjects.getLayer(l);
+            for (int i = 0; i < layer.size(); i++) {
+                GameObject o1 = layer.get(i);
+                if (o1.getState() == Active && (o1 instanceof Ship || o1 instanceof Bullet)) {
+                    int count = broadphase.query(o1);
+                    for (int c = 0; c < count; c++) {
+                        o1.collide(broadphase.getCandidate(c));
+                    }
+                    event.colliders++;
+                    event.pairs += count;
+                }
             }
         }
 
+        collisionPairs = event.pairs;
+        event.commit();
+
     }
     
     private void emptyGameObjectQueue() {
-        if( gameObjectQueue.isEmpty() ) return;
-        
-        synchronized (gameObjectQueue) {
-            gameObjects.addAll(gameObjectQueue);
-            gameObjectQueue.clear();
+        // Each object goes straight into the layer for its z-index, so
+        // there is nothing to sort.
+        GameObject o = gameObjectQueue.drain();
+        while (o != null) {
+            GameObject next = o.getSpawnNext();
+            o.setSpawnNext(null);
+            o.setLive(true);
+            gameObjects.insert(o);
+            o = next;
         }
-
-        sortGameObjectsByZ();
-    }
-    
-    private void sortGameObjectsByZ() {
-        //Sort into Z order. Only needs to be done when new objects are added.
-        Collections.sort(gameObjects, zcomp);
     }
     
     /**
-     * Removes "dead" objects from the game object queue.
+     * Takes a dead object out of the game, returning it to its pool if it 
+     * has one.
      */
-    private void cleanup() {
-
-        int count = 0;
-
-        for (Iterator<GameObject> o = gameObjects.iterator(); o.hasNext();) {
-            GameObject obj = (GameObject) o.next();
-
-            if (Killed == obj.getState()) {
-                //It would be better to reuse these
-                o.remove();
-                count++;
+    private void remove(GameObject o) {
+        o.setLive(false);
+        o.recycle();
+    }
 
-            }
+    private void discard(GameObject o) {
+        if (o.isRetained()) {
+            o.setLive(false);
+        } else {
+            remove(o);
         }
-        // TODO: Implement logging class.
-        System.out.println("Game objects: " + count + " removed. Remaining: " + gameObjects.size());
     }
     
-    // At some point, reimplement with lambda
-    private class ZOrderComparator implements Comparator<GameObject> {
-        @Override
-        public int compare(GameObject o1, GameObject o2) {
-            return o1.getZ() - o2.getZ();
-        }
-    }
     // </editor-fold>
     
     // <editor-fold defaultstate="collapsed" desc="Private Members">
-    private final List<GameObject> gameObjects;
-    private final List<GameObject> gameObjectQueue;
-    private static GameObjectsManager instance;
-    private final ZOrderComparator zcomp;
-    private final GameTimer gcTimer;
+    private final ZLayers gameObjects;
+    private final SpawnQueue gameObjectQueue;
+    private final GameSession session;
+    private final SpatialHash broadphase;
+    private final EntityStore entityStore;
+    private final SnapshotBuffer snapshots;
+    private final ObjectPool<Bullet> bulletPool;
+    private final ObjectPool<Asteroid> asteroidPool;
+    private final ObjectPool<StickParticle> particlePool;
     private int asteroidCount;
+    private int collisionPairs;
+    // Published for threads other than the one running the ticks
+    private volatile int entityCount;
     // </editor-fold>
 }
 
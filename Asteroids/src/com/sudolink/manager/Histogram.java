@@ -0,0 +1,162 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts non-negative values into a fixed set of buckets, so recording costs
+ * the same no matter how many values have been seen. Each power of two range
+ * is split into four buckets, which puts every percentile within 25% of the
+ * true value. The maximum is exact.
+ *
+ * Values may be recorded and read from any thread, without locking.
+ *
+ * @author Matthew MacGregor
+ */
+public class Histogram {
+
+    public Histogram() {
+        buckets = new AtomicLongArray(bucketFor(Long.MAX_VALUE) + 1);
+        sum = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    /**
+     * @param value The value to count. Negative values count as 0.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(bucketFor(value));
+        sum.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // Lost a race with another recorder, try again
+        }
+    }
+
+    /**
+     * @return The count, mean, 50th and 99th percentiles and maximum of the
+     * values recorded since the last reset.
+     */
+    public HistogramSummary summarize() {
+        return summarize(Collections.singletonList(this));
+    }
+
+    /**
+     * Summarizes several histograms as if they were one, such as the same
+     * figure recorded separately by several threads.
+     * @param histograms The histograms.
+     * @return The count, mean, 50th and 99th percentiles and maximum of the
+     * values recorded into any of them.
+     */
+    public static HistogramSummary summarize(List<Histogram> histograms) {
+        long[] counts = new long[bucketFor(Long.MAX_VALUE) + 1];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Histogram h : histograms) {
+            for (int i = 0; i < counts.length; i++) {
+                long c = h.buckets.get(i);
+                counts[i] += c;
+                count += c;
+            }
+            sum += h.sum.get();
+            max = Math.max(max, h.max.get());
+        }
+        long mean = count > 0 ? sum / count : 0;
+        return new HistogramSummary(count, mean,
+                percentile(counts, count, max, 0.50), percentile(counts, count, max, 0.99), max);
+    }
+
+    /**
+     * Counts everything recorded into another histogram into this one too.
+     * @param other The histogram to add, which is left as it is.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.addAndGet(i, other.buckets.get(i));
+        }
+        sum.addAndGet(other.sum.get());
+        long value = other.max.get();
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // Lost a race with another recorder, try again
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far. Values recorded while resetting may
+     * be partly lost.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return The largest value that falls in the bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long count, long max, double fraction) {
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                // The bucket's top end, but never past the largest value seen
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return 0;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final AtomicLongArray buckets;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+    // </editor-fold>
+}
@@ -0,0 +1,72 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The statistics of a Histogram at one moment. Published over JMX as
+ * composite data, with one item per getter.
+ *
+ * @author Matthew MacGregor
+ */
+public class HistogramSummary {
+
+    @ConstructorProperties({"count", "mean", "p50", "p99", "max"})
+    public HistogramSummary(long count, long mean, long p50, long p99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%d p50=%d p99=%d max=%d", count, mean, p50, p99, max);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p99;
+    private final long max;
+    // </editor-fold>
+}
@@ -0,0 +1,85 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size ring buffer of int events, for exactly one producer thread
+ * and one consumer thread. Neither side locks or waits: the producer only
+ * writes the tail and the consumer only writes the head, and each publishes
+ * its counter with an ordered store once the slot is written or read.
+ *
+ * @author Matthew MacGregor
+ */
+public class InputQueue {
+
+    /** Returned by poll() when there is nothing to read. */
+    public static final int EMPTY = -1;
+
+    /**
+     * @param capacity The most events the queue can hold. Rounded up to a
+     * power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        events = new int[size];
+        mask = size - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Adds an event. Only call from the producer thread.
+     * @param event The event, which must not be negative.
+     * @return False if the queue was full and the event was dropped.
+     */
+    public boolean offer(int event) {
+        long t = tail.get();
+        if (t - head.get() == events.length) {
+            return false;
+        }
+        events[(int) t & mask] = event;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest event. Only call from the consumer thread.
+     * @return The event, or EMPTY.
+     */
+    public int poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return EMPTY;
+        }
+        int event = events[(int) h & mask];
+        head.lazySet(h + 1);
+        return event;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final int[] events;
+    private final int mask;
+    // Next slot to read, only written by the consumer
+    private final AtomicLong head;
+    // Next slot to write, only written by the producer
+    private final AtomicLong tail;
+    // </editor-fold>
+}
@@ -0,0 +1,141 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.GameObject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a stock of game objects that can be handed out again once they have
+ * been killed, instead of allocating new ones. Subclasses decide how a new
+ * object is created when the pool runs dry:
+ *
+ * <pre>
+ *     new ObjectPool&lt;Bullet&gt;("Bullet") {
+ *         protected Bullet create() { return new Bullet(session); }
+ *     };
+ * </pre>
+ *
+ * Obtained objects are in their reset state and must be initialized by the
+ * caller. They find their own way back through GameObject.recycle().
+ *
+ * @param <T> The type of object held by this pool.
+ * @author Matthew MacGregor
+ */
+public abstract class ObjectPool<T extends GameObject> {
+
+    public ObjectPool(String name) {
+        this.name = name;
+        free = new ArrayList<>();
+    }
+
+    /**
+     * Creates a new object when the pool is empty.
+     * @return A new object.
+     */
+    protected abstract T create();
+
+    /**
+     * Returns an object from the pool, creating one if needed.
+     * @return An object in its reset state.
+     */
+    public T obtain() {
+        T o;
+        if (free.isEmpty()) {
+            o = create();
+            misses++;
+        } else {
+            o = free.remove(free.size() - 1);
+            hits++;
+        }
+        o.setPool(this);
+        inUse++;
+        if (inUse > highWaterMark) {
+            highWaterMark = inUse;
+        }
+        return o;
+    }
+
+    /**
+     * Hands an object back to the pool. Releasing an object twice has no
+     * effect.
+     * @param o An object previously returned by obtain().
+     */
+    @SuppressWarnings("unchecked")
+    public void release(GameObject o) {
+        if (o.getPool() != this) {
+            return;
+        }
+        o.setPool(null);
+        o.reset();
+        free.add((T) o);
+        inUse--;
+    }
+
+    /**
+     * @return The number of times obtain() was served from the pool.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of times obtain() had to create a new object.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The most objects that have been in use at the same time.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return The number of objects currently handed out.
+     */
+    public int getInUse() {
+        return inUse;
+    }
+
+    /**
+     * @return The number of objects waiting to be reused.
+     */
+    public int getFreeCount() {
+        return free.size();
+    }
+
+    @Override
+    public String toString() {
+        return name + " pool: " + hits + " hits, " + misses + " misses, "
+                + inUse + " in use (max " + highWaterMark + ")";
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final String name;
+    private final List<T> free;
+    private long hits;
+    private long misses;
+    private int inUse;
+    private int highWaterMark;
+    // </editor-fold>
+}
@@ -0,0 +1,403 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.enumeration.Phase;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Times each phase of a tick and a frame into histograms, and counts the
+ * bytes the game thread allocates per tick. Everything is published over JMX
+ * by register(), so it can be read from a running game with any JMX client.
+ *
+ * Each thread records into figures of its own, which are only merged when
+ * they are read, so the workers of a SessionHost never contend over them.
+ * The figures of threads that have finished are folded into one retired
+ * total, so a pool that replaces its workers doesn't leave them behind.
+ * Timing a phase costs two calls to System.nanoTime(), a thread local
+ * lookup and a few atomic adds that no other thread touches:
+ *
+ *     long start = System.nanoTime();
+ *     ...
+ *     monitor.record(Phase.Wave, start);
+ *
+ * @author Matthew MacGregor
+ */
+public class PerformanceMonitor implements PerformanceMonitorMXBean {
+
+    public static final String OBJECT_NAME = "com.sudolink:type=PerformanceMonitor";
+
+    public static synchronized PerformanceMonitor getInstance() {
+        if (instance == null) {
+            instance = new PerformanceMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * Publishes the monitor on the platform MBean server. Does nothing if it
+     * is already registered.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(PerformanceMonitor.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Records the time since a phase started.
+     * @param phase The phase.
+     * @param start The System.nanoTime() the phase started at.
+     * @return The time now, so the next phase can start from it.
+     */
+    public long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        stripe.get().record(phase.ordinal(), now - start, now);
+        return now;
+    }
+
+    /**
+     * Marks the start of a tick. Call on the thread running the tick; ticks
+     * of different sessions may run on different threads at once.
+     * @return The System.nanoTime() the tick started at.
+     */
+    public long beginTick() {
+        stripe.get().tickAllocated = allocatedBytes();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time and the allocations of a tick. Call on the thread
+     * that called beginTick().
+     * @param start The time returned by beginTick().
+     */
+    public void endTick(long start) {
+        long now = record(Phase.Tick, start);
+        Stripe s = stripe.get();
+        if (s.tickAllocated >= 0) {
+            s.record(ALLOCATIONS, allocatedBytes() - s.tickAllocated, now);
+        }
+    }
+
+    /**
+     * Includes a session's objects in the entity counts.
+     * @param objects The session's objects.
+     */
+    public void watch(GameObjectsManager objects) {
+        worlds.addIfAbsent(objects);
+    }
+
+    /**
+     * Stops counting a session's objects.
+     * @param objects The session's objects.
+     */
+    public void unwatch(GameObjectsManager objects) {
+        worlds.remove(objects);
+    }
+
+    /**
+     * Reads the last time recorded for a phase without summarizing the
+     * histogram, so it can be polled every frame without allocating.
+     * @param phase The phase.
+     * @return The last time recorded, in nanoseconds.
+     */
+    public long getLatest(Phase phase) {
+        return latest(phase.ordinal(), 0);
+    }
+
+    /**
+     * @return Bytes allocated by the thread running the last tick, or -1 if
+     * that can't be measured.
+     */
+    public long getLatestAllocatedBytes() {
+        return latest(ALLOCATIONS, -1);
+    }
+
+    @Override
+    public HistogramSummary getTickNanos() {
+        return summarize(Phase.Tick);
+    }
+
+    @Override
+    public HistogramSummary getInputNanos() {
+        return summarize(Phase.Input);
+    }
+
+    @Override
+    public HistogramSummary getObjectsNanos() {
+        return summarize(Phase.Objects);
+    }
+
+    @Override
+    public HistogramSummary getCollisionsNanos() {
+        return summarize(Phase.Collisions);
+    }
+
+    @Override
+    public HistogramSummary getWaveNanos() {
+        return summarize(Phase.Wave);
+    }
+
+    @Override
+    public HistogramSummary getSnapshotNanos() {
+        return summarize(Phase.Snapshot);
+    }
+
+    @Override
+    public HistogramSummary getRenderNanos() {
+        return summarize(Phase.Render);
+    }
+
+    @Override
+    public HistogramSummary getPresentNanos() {
+        return summarize(Phase.Present);
+    }
+
+    @Override
+    public HistogramSummary getAllocatedBytesPerTick() {
+        return summarize(ALLOCATIONS);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return worlds.size();
+    }
+
+    // The counts are totals across every watched session. They are kept by
+    // the threads running the ticks, and may be a tick stale here.
+    @Override
+    public int getEntityCount() {
+        int count = 0;
+        for (GameObjectsManager objects : worlds) {
+            count += objects.getEntityCount();
+        }
+        return count;
+    }
+
+    @Override
+    public int getAsteroidCount() {
+        int count = 0;
+        for (GameObjectsManager objects : worlds) {
+            count += objects.getAsteroidPool().getInUse();
+        }
+        return count;
+    }
+
+    @Override
+    public int getBulletCount() {
+        int count = 0;
+        for (GameObjectsManager objects : worlds) {
+            count += objects.getBulletPool().getInUse();
+        }
+        return count;
+    }
+
+    @Override
+    public int getParticleCount() {
+        int count = 0;
+        for (GameObjectsManager objects : worlds) {
+            count += objects.getParticlePool().getInUse();
+        }
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        synchronized (retired) {
+            for (Histogram h : retired.histograms) {
+                h.reset();
+            }
+            for (Stripe s : stripes) {
+                for (Histogram h : s.histograms) {
+                    h.reset();
+                }
+            }
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private PerformanceMonitor() {
+        worlds = new CopyOnWriteArrayList<>();
+        stripes = new CopyOnWriteArrayList<>();
+        retired = new Stripe(null);
+        stripe = new ThreadLocal<Stripe>() {
+            @Override
+            protected Stripe initialValue() {
+                Stripe s = new Stripe(Thread.currentThread());
+                synchronized (retired) {
+                    retireFinished();
+                    stripes.add(s);
+                }
+                return s;
+            }
+        };
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threads = null;
+        }
+    }
+
+    private HistogramSummary summarize(Phase phase) {
+        return summarize(phase.ordinal());
+    }
+
+    /**
+     * Merges one figure from every thread's stripe.
+     */
+    private HistogramSummary summarize(int figure) {
+        synchronized (retired) {
+            retireFinished();
+            List<Histogram> histograms = new ArrayList<>();
+            histograms.add(retired.histograms[figure]);
+            for (Stripe s : stripes) {
+                histograms.add(s.histograms[figure]);
+            }
+            return Histogram.summarize(histograms);
+        }
+    }
+
+    /**
+     * @return The value of a figure recorded most recently by any thread, or
+     * none if it hasn't been recorded yet.
+     */
+    private long latest(int figure, long none) {
+        synchronized (retired) {
+            retireFinished();
+            long value = retired.latestAt.get(figure) != 0 ? retired.latest.get(figure) : none;
+            long at = retired.latestAt.get(figure);
+            for (Stripe s : stripes) {
+                long t = s.latestAt.get(figure);
+                if (t != 0 && (at == 0 || t - at > 0)) {
+                    at = t;
+                    value = s.latest.get(figure);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Folds the stripes of threads that have finished into the retired one.
+     * A finished thread can't record any more, so nothing is lost. Call
+     * holding the lock on retired.
+     */
+    private void retireFinished() {
+        for (Stripe s : stripes) {
+            if (!s.owner.isAlive()) {
+                retired.add(s);
+                stripes.remove(s);
+            }
+        }
+    }
+
+    /**
+     * @return Bytes allocated by the calling thread so far, or -1 if that
+     * can't be measured.
+     */
+    private long allocatedBytes() {
+        if (threads == null) {
+            return -1;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * The figures recorded by one thread: a histogram per phase plus one
+     * for allocations, and the latest value of each. Only the owning thread
+     * writes to a stripe, and others only read it.
+     */
+    private static class Stripe {
+
+        Stripe(Thread owner) {
+            this.owner = owner;
+            histograms = new Histogram[FIGURES];
+            for (int i = 0; i < FIGURES; i++) {
+                histograms[i] = new Histogram();
+            }
+            latest = new AtomicLongArray(FIGURES);
+            latestAt = new AtomicLongArray(FIGURES);
+        }
+
+        void record(int figure, long value, long now) {
+            histograms[figure].record(value);
+            // Single writer, so an ordered store is enough
+            latest.lazySet(figure, value);
+            latestAt.lazySet(figure, now);
+        }
+
+        /**
+         * Adds the figures of a stripe whose owner has finished, keeping
+         * whichever latest values are newer.
+         */
+        void add(Stripe finished) {
+            for (int i = 0; i < FIGURES; i++) {
+                histograms[i].add(finished.histograms[i]);
+                long t = finished.latestAt.get(i);
+                if (t != 0 && (latestAt.get(i) == 0 || t - latestAt.get(i) > 0)) {
+                    latest.set(i, finished.latest.get(i));
+                    latestAt.set(i, t);
+                }
+            }
+        }
+
+        // The thread that records into the stripe, null for the retired one
+        final Thread owner;
+        final Histogram[] histograms;
+        final AtomicLongArray latest;
+        // The System.nanoTime() each latest value was recorded at, 0 if never
+        final AtomicLongArray latestAt;
+        // Allocated bytes at the start of the tick running on the thread
+        long tickAllocated;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int ALLOCATIONS = Phase.values().length;
+    private static final int FIGURES = ALLOCATIONS + 1;
+    private static PerformanceMonitor instance;
+    private final com.sun.management.ThreadMXBean threads;
+    private final CopyOnWriteArrayList<GameObjectsManager> worlds;
+    // One per live thread that has recorded anything
+    private final CopyOnWriteArrayList<Stripe> stripes;
+    // The figures of finished threads; also the lock for moving stripes here
+    private final Stripe retired;
+    private final ThreadLocal<Stripe> stripe;
+    // </editor-fold>
+}
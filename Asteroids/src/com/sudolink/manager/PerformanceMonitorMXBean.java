@@ -0,0 +1,68 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+/**
+ * The management interface of the PerformanceMonitor, registered as
+ * com.sudolink:type=PerformanceMonitor. Phase times are in nanoseconds.
+ *
+ * @author Matthew MacGregor
+ */
+public interface PerformanceMonitorMXBean {
+
+    HistogramSummary getTickNanos();
+
+    HistogramSummary getInputNanos();
+
+    HistogramSummary getObjectsNanos();
+
+    HistogramSummary getCollisionsNanos();
+
+    HistogramSummary getWaveNanos();
+
+    HistogramSummary getSnapshotNanos();
+
+    HistogramSummary getRenderNanos();
+
+    HistogramSummary getPresentNanos();
+
+    /**
+     * @return Bytes allocated by the thread running a tick, per tick, or an empty
+     * summary if the JVM can't measure it.
+     */
+    HistogramSummary getAllocatedBytesPerTick();
+
+    /**
+     * @return The number of sessions whose objects are counted below.
+     */
+    int getSessionCount();
+
+    int getEntityCount();
+
+    int getAsteroidCount();
+
+    int getBulletCount();
+
+    int getParticleCount();
+
+    /**
+     * Starts all the histograms over.
+     */
+    void reset();
+}
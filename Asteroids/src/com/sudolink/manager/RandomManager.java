@@ -0,0 +1,91 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.enumeration.RandomStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The random numbers of one GameSession. Every stream is split from a single
+ * seed, so a session started with the same seed and fed the same input
+ * plays out exactly the same way. Each part of the game has a stream of its
+ * own, so a change to how often one part draws doesn't shift the numbers
+ * seen by the others. The streams can be saved and loaded, so a saved game
+ * goes on drawing the numbers it would have.
+ *
+ * The streams are not thread safe. Like the rest of the session, they are
+ * only used by the thread running its tick.
+ *
+ * @author Matthew MacGregor
+ */
+public class RandomManager {
+
+    /**
+     * @param seed The seed every stream is split from.
+     */
+    public RandomManager(long seed) {
+        this.seed = seed;
+        SplitMix root = new SplitMix(seed);
+        streams = new SplitMix[STREAMS.length];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new SplitMix(root.nextLong());
+        }
+    }
+
+    /**
+     * @param stream The part of the game drawing the numbers.
+     * @return Its stream.
+     */
+    public SplitMix get(RandomStream stream) {
+        return streams[stream.ordinal()];
+    }
+
+    /**
+     * @return The seed the session was started with.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Writes where every stream has got to.
+     * @param buffer The buffer to write to.
+     */
+    public void save(ByteBuffer buffer) {
+        for (SplitMix stream : streams) {
+            buffer.putLong(stream.getState());
+        }
+    }
+
+    /**
+     * Puts every stream back where save() found it.
+     * @param buffer The buffer to read from.
+     */
+    public void load(ByteBuffer buffer) {
+        for (SplitMix stream : streams) {
+            stream.setState(buffer.getLong());
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final RandomStream[] STREAMS = RandomStream.values();
+    private final long seed;
+    private final SplitMix[] streams;
+    // </editor-fold>
+}
@@ -0,0 +1,239 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.Sprite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches pre-rotated copies of sprites, so drawing a rotated object becomes a
+ * plain blit at an integer position instead of a bilinear transform. Angles
+ * are quantized to a fixed number of steps, and each rotated frame is only
+ * rendered the first time it is needed.
+ *
+ * The cache is off until configure() is called with a non-zero step count.
+ * Once the frames use more than the memory cap, the least recently drawn
+ * sprites are dropped. Sprites are used as keys, so they must not change
+ * after they have been drawn.
+ *
+ * Not thread safe; only use it from the thread that renders.
+ *
+ * @author Matthew MacGregor
+ */
+public class RotationCache {
+
+    // Singleton
+    private RotationCache() {
+        entries = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    public static synchronized RotationCache getInstance() {
+        if (instance == null) {
+            instance = new RotationCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Turns the cache on or off and sets its limits. Cached frames are
+     * discarded.
+     *
+     * @param steps The number of angles in a full turn (e.g. 64), or 0 to
+     * disable the cache.
+     * @param maxBytes The most memory the rotated frames may use.
+     */
+    public void configure(int steps, long maxBytes) {
+        clear();
+        this.steps = Math.max(0, steps);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return True if draw() may be used.
+     */
+    public boolean isEnabled() {
+        return steps > 0;
+    }
+
+    /**
+     * Draws a sprite rotated about its center. The center of a sprite is the
+     * center of the object that owns it, which is half a pixel up and left of
+     * the image center since sprites carry an extra row and column for the
+     * outline.
+     *
+     * @param g2d The Graphics context, without any transform applied.
+     * @param sprite The sprite to draw.
+     * @param rotation The rotation in degrees.
+     * @param centerX Horizontal screen coordinate of the object's center.
+     * @param centerY Vertical screen coordinate of the object's center.
+     */
+    public void draw(Graphics2D g2d, Sprite sprite, float rotation, float centerX, float centerY) {
+        int step = stepFor(rotation);
+        if (step == 0) {
+            sprite.draw(g2d,
+                    round(centerX - pivotX(sprite)),
+                    round(centerY - pivotY(sprite)));
+            return;
+        }
+
+        Frames frames = entries.get(sprite);
+        if (frames == null) {
+            frames = new Frames(sprite, steps);
+            entries.put(sprite, frames);
+        }
+        BufferedImage image = frames.images[step];
+        if (image == null) {
+            image = renderFrame(sprite, frames.size, step);
+            frames.images[step] = image;
+            bytesUsed += frames.frameBytes;
+            misses++;
+            evict(sprite);
+        } else {
+            hits++;
+        }
+
+        float half = frames.size / 2f;
+        g2d.drawImage(image, round(centerX - half), round(centerY - half), null);
+    }
+
+    /**
+     * Drops every cached frame.
+     */
+    public void clear() {
+        entries.clear();
+        bytesUsed = 0;
+    }
+
+    /**
+     * @return The memory used by the cached frames, in bytes.
+     */
+    public long getBytesUsed() {
+        return bytesUsed;
+    }
+
+    /**
+     * @return The number of draws served by an already rotated frame.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of frames that had to be rendered.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of angles in a full turn.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private int stepFor(float rotation) {
+        float r = rotation % 360;
+        if (r < 0) {
+            r += 360;
+        }
+        return round(r / 360 * steps) % steps;
+    }
+
+    private BufferedImage renderFrame(Sprite sprite, int size, int step) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(size / 2.0, size / 2.0);
+        g.rotate(Math.PI * 2 * step / steps);
+        g.translate(-pivotX(sprite), -pivotY(sprite));
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        sprite.draw(g, 0, 0);
+        g.dispose();
+        return image;
+    }
+
+    private void evict(Sprite keep) {
+        Iterator<Map.Entry<Sprite, Frames>> it = entries.entrySet().iterator();
+        while (bytesUsed > maxBytes && it.hasNext()) {
+            Map.Entry<Sprite, Frames> e = it.next();
+            if (e.getKey() != keep) {
+                bytesUsed -= e.getValue().totalBytes();
+                it.remove();
+            }
+        }
+    }
+
+    private static float pivotX(Sprite sprite) {
+        return (sprite.getWidth() - 1) / 2f;
+    }
+
+    private static float pivotY(Sprite sprite) {
+        return (sprite.getHeight() - 1) / 2f;
+    }
+
+    private static int round(float value) {
+        return (int) Math.floor(value + 0.5f);
+    }
+
+    /**
+     * The rotated frames of one sprite. Every frame is a square large enough
+     * to hold the sprite at any angle.
+     */
+    private static class Frames {
+
+        Frames(Sprite sprite, int steps) {
+            float px = Math.max(pivotX(sprite), sprite.getWidth() - pivotX(sprite));
+            float py = Math.max(pivotY(sprite), sprite.getHeight() - pivotY(sprite));
+            size = (int) Math.ceil(2 * Math.sqrt(px * px + py * py)) + 2;
+            frameBytes = (long) size * size * 4;
+            images = new BufferedImage[steps];
+        }
+
+        long totalBytes() {
+            long total = 0;
+            for (BufferedImage image : images) {
+                if (image != null) {
+                    total += frameBytes;
+                }
+            }
+            return total;
+        }
+
+        final int size;
+        final long frameBytes;
+        final BufferedImage[] images;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static RotationCache instance;
+    private final LinkedHashMap<Sprite, Frames> entries;
+    private int steps;
+    private long maxBytes;
+    private long bytesUsed;
+    private long hits;
+    private long misses;
+    // </editor-fold>
+}
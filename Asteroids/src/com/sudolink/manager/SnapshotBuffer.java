@@ -0,0 +1,35 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+/**
+ * The FrameSnapshots shared by the simulation and render threads. The
+ * simulation fills getBack() and publishes it; the renderer draws whatever
+ * getFront() returns. Neither thread waits for the other: if the renderer
+ * falls behind it simply skips to the newest snapshot, and if it gets ahead
+ * it draws the same snapshot again, further along its interpolation.
+ *
+ * @author Matthew MacGregor
+ */
+public class SnapshotBuffer extends TripleBuffer<FrameSnapshot> {
+
+    public SnapshotBuffer() {
+        super(new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot());
+    }
+}
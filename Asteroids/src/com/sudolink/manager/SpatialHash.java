@@ -0,0 +1,201 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.GameObject;
+import java.util.Arrays;
+
+/**
+ * A uniform grid broadphase. Objects are bucketed into square cells by their
+ * bounds, and a query only returns the objects that share at least one cell
+ * with the queried object. The grid is unbounded: cell coordinates are hashed
+ * into a fixed table, so objects drifting offscreen are handled too.
+ *
+ * The hash is meant to be cleared and refilled once per tick. All storage is
+ * kept in primitive arrays that are reused between ticks.
+ *
+ * @author Matthew MacGregor
+ */
+public class SpatialHash {
+
+    public SpatialHash(int cellSize) {
+        this.cellSize = cellSize;
+        objects = new GameObject[256];
+        visited = new int[256];
+        entryObject = new int[512];
+        entryNext = new int[512];
+        candidates = new int[64];
+        resizeTable(1024);
+    }
+
+    /**
+     * Empties the grid. This doesn't touch the cell table, it just invalidates
+     * every cell at once.
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, objectCount, null);
+        objectCount = 0;
+        entryCount = 0;
+        generation++;
+
+        // Keep the table at least twice as large as the last population
+        if (lastEntryCount * 2 > cellHead.length) {
+            resizeTable(Integer.highestOneBit(lastEntryCount * 2) << 1);
+        }
+    }
+
+    /**
+     * Adds an object to every cell its bounds overlap.
+     * @param o The object to add.
+     */
+    public void insert(GameObject o) {
+        if (objectCount == objects.length) {
+            objects = Arrays.copyOf(objects, objectCount * 2);
+            visited = Arrays.copyOf(visited, objectCount * 2);
+        }
+        int index = objectCount++;
+        objects[index] = o;
+        visited[index] = 0;
+
+        int cx0 = cell(o.getMinX());
+        int cy0 = cell(o.getMinY());
+        int cx1 = cell(o.getMaxX());
+        int cy1 = cell(o.getMaxY());
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                addEntry(hash(cx, cy), index);
+            }
+        }
+        lastEntryCount = entryCount;
+    }
+
+    /**
+     * Collects every object sharing a cell with o (excluding o itself). Each
+     * candidate is reported once, even if it spans several cells. Use
+     * getCandidate() to read the results.
+     *
+     * @param o The object to test.
+     * @return The number of candidates found.
+     */
+    public int query(GameObject o) {
+        queryStamp++;
+        candidateCount = 0;
+
+        int cx0 = cell(o.getMinX());
+        int cy0 = cell(o.getMinY());
+        int cx1 = cell(o.getMaxX());
+        int cy1 = cell(o.getMaxY());
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int slot = hash(cx, cy);
+                if (cellGeneration[slot] != generation) {
+                    continue;
+                }
+                for (int e = cellHead[slot]; e != -1; e = entryNext[e]) {
+                    int index = entryObject[e];
+                    if (visited[index] != queryStamp && objects[index] != o) {
+                        visited[index] = queryStamp;
+                        addCandidate(index);
+                    }
+                }
+            }
+        }
+        return candidateCount;
+    }
+
+    /**
+     * Returns a result of the last query.
+     * @param i The index of the candidate, less than the value returned by query().
+     * @return The candidate object.
+     */
+    public GameObject getCandidate(int i) {
+        return objects[candidates[i]];
+    }
+
+    /**
+     * @return The number of objects currently in the grid.
+     */
+    public int size() {
+        return objectCount;
+    }
+
+    /**
+     * @return The width and height of a single cell in pixels.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private int cell(float coordinate) {
+        // Round toward negative infinity so offscreen cells don't overlap cell 0
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int hash(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & (cellHead.length - 1);
+    }
+
+    private void addEntry(int slot, int index) {
+        if (entryCount == entryObject.length) {
+            entryObject = Arrays.copyOf(entryObject, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        int e = entryCount++;
+        entryObject[e] = index;
+        if (cellGeneration[slot] != generation) {
+            cellGeneration[slot] = generation;
+            entryNext[e] = -1;
+        } else {
+            entryNext[e] = cellHead[slot];
+        }
+        cellHead[slot] = e;
+    }
+
+    private void addCandidate(int index) {
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+        candidates[candidateCount++] = index;
+    }
+
+    private void resizeTable(int size) {
+        cellHead = new int[size];
+        cellGeneration = new int[size];
+        generation = 1;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final int cellSize;
+    private GameObject[] objects;
+    private int objectCount;
+    private int[] visited;
+    private int queryStamp;
+    private int[] entryObject;
+    private int[] entryNext;
+    private int entryCount;
+    private int lastEntryCount;
+    private int[] cellHead;
+    private int[] cellGeneration;
+    private int generation;
+    private int[] candidates;
+    private int candidateCount;
+    // </editor-fold>
+}
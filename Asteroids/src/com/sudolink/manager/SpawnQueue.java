@@ -0,0 +1,83 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.GameObject;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Objects waiting to enter the game. Any number of threads may push, without
+ * locking; one thread drains the whole queue at once, once per tick.
+ *
+ * This is a lock-free (Treiber) stack linked through the objects themselves,
+ * so pushing allocates nothing. Draining takes the whole stack with a single
+ * exchange and reverses it, so objects come out in the order they went in.
+ * An object may only be queued once at a time.
+ *
+ * @author Matthew MacGregor
+ */
+public class SpawnQueue {
+
+    public SpawnQueue() {
+        top = new AtomicReference<>();
+    }
+
+    /**
+     * Queues an object. Safe to call from any thread.
+     * @param o The object.
+     */
+    public void push(GameObject o) {
+        GameObject head;
+        do {
+            head = top.get();
+            o.setSpawnNext(head);
+        } while (!top.compareAndSet(head, o));
+    }
+
+    /**
+     * Looks at the queue without taking anything. Only the draining thread
+     * may walk the objects returned.
+     * @return The newest object, linked through getSpawnNext() to the older
+     * ones, or null if the queue is empty.
+     */
+    public GameObject peek() {
+        return top.get();
+    }
+
+    /**
+     * Takes every queued object. Only one thread may drain.
+     * @return The oldest object, linked through getSpawnNext() to the rest in
+     * the order they were pushed, or null if the queue was empty.
+     */
+    public GameObject drain() {
+        GameObject o = top.getAndSet(null);
+        GameObject reversed = null;
+        while (o != null) {
+            GameObject next = o.getSpawnNext();
+            o.setSpawnNext(reversed);
+            reversed = o;
+            o = next;
+        }
+        return reversed;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private final AtomicReference<GameObject> top;
+    // </editor-fold>
+}
@@ -0,0 +1,117 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+/**
+ * A SplitMix64 random number generator, the algorithm behind
+ * java.util.SplittableRandom. Its whole state is one long, which can be read
+ * and set, so a session's random numbers can be saved along with the rest of
+ * its world (see SessionSnapshot) and carry on from where they left off.
+ *
+ * Not thread safe.
+ *
+ * @author Matthew MacGregor
+ */
+public class SplitMix {
+
+    /**
+     * @param seed The starting state.
+     */
+    public SplitMix(long seed) {
+        state = seed;
+    }
+
+    /**
+     * @return The next 64 random bits.
+     */
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return The next 32 random bits.
+     */
+    public int nextInt() {
+        return mix32(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param bound The upper bound (exclusive). Must be positive.
+     * @return A random int from 0 to bound - 1, with every value equally
+     * likely.
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            // A power of two, so the low bits will do
+            return r & m;
+        }
+        // Reject the values at the top that would favor the low numbers
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+        }
+        return r;
+    }
+
+    /**
+     * @return A random double from 0 (inclusive) to 1 (exclusive).
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public boolean nextBoolean() {
+        return nextInt() < 0;
+    }
+
+    /**
+     * @return The state, to hand to setState() later.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * @param state A state returned by getState().
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private long state;
+    // </editor-fold>
+}
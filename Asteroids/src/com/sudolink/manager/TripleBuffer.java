@@ -0,0 +1,100 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands buffers from one writer thread to one reader thread without either
+ * ever waiting for the other. Of the three buffers the writer owns one (the
+ * back), the reader owns one (the front), and the third sits in a shared
+ * "ready" slot. Publishing swaps the back into the ready slot; the reader
+ * swaps the ready slot into the front whenever something new has been
+ * published. Both swaps are a single atomic exchange on the index of the
+ * ready buffer, which also carries a flag saying whether it is newer than
+ * the reader's front.
+ *
+ * The reader always sees the latest complete buffer. If the writer publishes
+ * faster than the reader reads, the older buffers are simply overwritten.
+ *
+ * @param <T> The buffer type.
+ * @author Matthew MacGregor
+ */
+public class TripleBuffer<T> {
+
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[]{first, second, third};
+        back = 0;
+        ready = new AtomicInteger(1);
+        front = 2;
+    }
+
+    /**
+     * @return The buffer to fill. Only the writer may use it, and only until
+     * the next publish().
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Makes the back buffer the latest complete one, and takes the buffer
+     * that was waiting in the ready slot as the new back. Never blocks.
+     */
+    public void publish() {
+        back = ready.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Takes the latest published buffer, if there is a newer one than last
+     * time. Only the reader may use the returned buffer, and only until the
+     * next call. Never blocks.
+     * @return The latest complete buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        if ((ready.get() & FRESH) != 0) {
+            front = ready.getAndSet(front) & INDEX;
+        }
+        return (T) buffers[front];
+    }
+
+    /**
+     * Returns all three buffers, whoever owns them. Only safe while neither
+     * thread is running, e.g. to configure the buffers at startup.
+     * @param index 0, 1 or 2.
+     * @return The buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) buffers[index];
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;
+    private final Object[] buffers;
+    private final AtomicInteger ready;
+    // Only touched by the writer
+    private int back;
+    // Only touched by the reader
+    private int front;
+    // </editor-fold>
+}
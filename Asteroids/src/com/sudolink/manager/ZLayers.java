@@ -0,0 +1,126 @@
+/*
+*    Copyright 2014 Matthew MacGregor
+*
+*    This file is part of NotAsteroids.
+*
+*    NotAsteroids is free software: you can redistribute it and/or modify
+*    it under the terms of the GNU General Public License as published by
+*    the Free Software Foundation, either version 3 of the License, or
+*    (at your option) any later version.
+*
+*    Foobar is distributed in the hope that it will be useful,
+*    but WITHOUT ANY WARRANTY; without even the implied warranty of
+*    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*    GNU General Public License for more details.
+*
+*    You should have received a copy of the GNU General Public License
+*    along with NotAsteroids.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package com.sudolink.manager;
+
+import com.sudolink.entities.GameObject;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Game objects bucketed by their depth (z-index). There is one layer per
+ * distinct z value, kept in ascending order, and objects within a layer stay
+ * in the order they were added. Iterating the layers in order gives the same
+ * result as a stable sort by z, without ever sorting.
+ *
+ * Only a handful of z values are used in the game, so finding the layer for a
+ * new object is effectively constant time.
+ *
+ * As a List, this is a read-only view of every object in draw order.
+ *
+ * @author Matthew MacGregor
+ */
+public class ZLayers extends AbstractList<GameObject> {
+
+    public ZLayers() {
+        zValues = new int[8];
+        layers = new ArrayList<>();
+    }
+
+    /**
+     * Appends an object to the layer for its z-index, creating the layer if
+     * this is the first object at that depth.
+     * @param o The object to add.
+     */
+    public void insert(GameObject o) {
+        layerFor(o.getZ()).add(o);
+    }
+
+    /**
+     * @return The number of distinct depths seen so far.
+     */
+    public int getLayerCount() {
+        return layers.size();
+    }
+
+    /**
+     * Returns the objects at one depth. Layers are ordered back to front. The
+     * returned list is live; GameObjectsManager compacts it during update.
+     * @param index The layer index, less than getLayerCount().
+     * @return The objects in the layer.
+     */
+    public List<GameObject> getLayer(int index) {
+        return layers.get(index);
+    }
+
+    /**
+     * @param index The layer index, less than getLayerCount().
+     * @return The z-index shared by every object in the layer.
+     */
+    public int getLayerZ(int index) {
+        return zValues[index];
+    }
+
+    @Override
+    public GameObject get(int index) {
+        for (List<GameObject> layer : layers) {
+            if (index < layer.size()) {
+                return layer.get(index);
+            }
+            index -= layer.size();
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (List<GameObject> layer : layers) {
+            size += layer.size();
+        }
+        return size;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Private Methods">
+    private List<GameObject> layerFor(int z) {
+        int count = layers.size();
+        int index = Arrays.binarySearch(zValues, 0, count, z);
+        if (index >= 0) {
+            return layers.get(index);
+        }
+
+        // First object at this depth, open a new layer in sorted position
+        index = -(index + 1);
+        if (count == zValues.length) {
+            zValues = Arrays.copyOf(zValues, count * 2);
+        }
+        System.arraycopy(zValues, index, zValues, index + 1, count - index);
+        zValues[index] = z;
+        List<GameObject> layer = new ArrayList<>();
+        layers.add(index, layer);
+        return layer;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Members">
+    private int[] zValues;
+    private final List<List<GameObject>> layers;
+    // </editor-fold>
+}